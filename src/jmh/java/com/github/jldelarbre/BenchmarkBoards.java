@@ -0,0 +1,66 @@
+package com.github.jldelarbre;
+
+import java.util.Random;
+
+/**
+ * Boards shared by the benchmarks, built from a solved grid with a fixed seed so that runs are comparable.
+ */
+final class BenchmarkBoards {
+
+    private static final long SEED = 42;
+    /**
+     * Fresh boards analysed by one invocation of the benchmarks of memoized analyses: the board setup and the timer
+     * reads are spread over the batch instead of weighing on each microsecond-long analysis
+     */
+    static final int FRESH_BOARDS_PER_INVOCATION = 32;
+
+    enum Fill {
+        EMPTY(0), SPARSE(0.25), NEAR_COMPLETE(0.9);
+
+        private final double filledRatio;
+
+        Fill(double filledRatio) {
+            this.filledRatio = filledRatio;
+        }
+    }
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * @return values of a board whose filled cells are those of a solved grid, 0 for an empty cell
+     */
+    static int[] values(int size, Fill fill) {
+        int[] solution = SudokuSolver.solve(SudokuBoard.create(size)).solution().orElseThrow().toValues();
+        Random random = new Random(SEED);
+        int[] values = new int[solution.length];
+        for (int cell = 0; cell < values.length; ++cell) {
+            values[cell] = random.nextDouble() < fill.filledRatio ? solution[cell] : 0;
+        }
+        return values;
+    }
+
+    /**
+     * @return {@link #FRESH_BOARDS_PER_INVOCATION} new boards holding the values, none of their analyses computed
+     */
+    static SudokuBoard[] freshBoards(int size, int[] values) {
+        SudokuBoard[] boards = new SudokuBoard[FRESH_BOARDS_PER_INVOCATION];
+        for (int i = 0; i < boards.length; ++i) {
+            boards[i] = SudokuBoard.fromValues(size, values);
+        }
+        return boards;
+    }
+
+    /**
+     * @return index of an empty cell, or of the first cell when the board is full
+     */
+    static int emptyCell(int[] values, Random random) {
+        for (int tries = 0; tries < values.length; ++tries) {
+            int cell = random.nextInt(values.length);
+            if (values[cell] == 0) {
+                return cell;
+            }
+        }
+        return 0;
+    }
+}
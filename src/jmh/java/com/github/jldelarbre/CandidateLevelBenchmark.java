@@ -0,0 +1,53 @@
+package com.github.jldelarbre;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candidates of every cell at each constraint level, on new boards at each invocation since candidates are memoized
+ * (the score is the time of one board, see {@link BenchmarkBoards#FRESH_BOARDS_PER_INVOCATION}).
+ * A level includes the computation of the lower levels it depends on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateLevelBenchmark {
+
+    @Param({"3", "4", "5"})
+    int size;
+
+    @Param({"EMPTY", "SPARSE", "NEAR_COMPLETE"})
+    BenchmarkBoards.Fill fill;
+
+    @Param({"0", "1", "2", "3", "4"})
+    int constraintLevel;
+
+    private int[] values;
+    private SudokuBoard[] freshBoards;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        values = BenchmarkBoards.values(size, fill);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        freshBoards = BenchmarkBoards.freshBoards(size, values);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkBoards.FRESH_BOARDS_PER_INVOCATION)
+    public void candidates(Blackhole blackhole) {
+        for (SudokuBoard freshBoard : freshBoards) {
+            for (SudokuBoard.Cell cell : freshBoard.cells()) {
+                blackhole.consume(
+                        cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(constraintLevel));
+            }
+        }
+    }
+}
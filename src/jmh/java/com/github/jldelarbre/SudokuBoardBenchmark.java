@@ -0,0 +1,113 @@
+package com.github.jldelarbre;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+
+/**
+ * Board edits and the analyses read by the GUI. Analyses are memoized by the board, so they run on new boards at each
+ * invocation (the score is the time of one board, see {@link BenchmarkBoards#FRESH_BOARDS_PER_INVOCATION}).<br>
+ * Run with {@code java -jar target/benchmarks.jar SudokuBoardBenchmark -prof gc} to report allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SudokuBoardBenchmark {
+
+    @Param({"3", "4", "5"})
+    int size;
+
+    @Param({"EMPTY", "SPARSE", "NEAR_COMPLETE"})
+    BenchmarkBoards.Fill fill;
+
+    private int[] values;
+    private SudokuBoard board;
+    private int editedRow;
+    private int editedColumn;
+    private int editedValue;
+    private SudokuBoard[] freshBoards;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        values = BenchmarkBoards.values(size, fill);
+        board = SudokuBoard.fromValues(size, values);
+        int regionSize = size * size;
+        int cell = BenchmarkBoards.emptyCell(values, new Random(size));
+        editedRow = cell / regionSize + 1;
+        editedColumn = cell % regionSize + 1;
+        editedValue = regionSize;
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        freshBoards = BenchmarkBoards.freshBoards(size, values);
+    }
+
+    @Benchmark
+    public SudokuBoard set() {
+        return board.set(editedValue, editedRow, editedColumn);
+    }
+
+    @Benchmark
+    public SudokuBoard clear() {
+        return board.clear(editedRow, editedColumn);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkBoards.FRESH_BOARDS_PER_INVOCATION)
+    public void uniquePositionValues(Blackhole blackhole) {
+        for (SudokuBoard freshBoard : freshBoards) {
+            for (SudokuBoard.Cell cell : freshBoard.cells()) {
+                blackhole.consume(
+                        cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(USED_CONSTRAINT_LEVEL));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkBoards.FRESH_BOARDS_PER_INVOCATION)
+    public void unfillableErroneousCells(Blackhole blackhole) {
+        for (SudokuBoard freshBoard : freshBoards) {
+            blackhole.consume(freshBoard.unfillableErroneousCells());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkBoards.FRESH_BOARDS_PER_INVOCATION)
+    public void regionErrors(Blackhole blackhole) {
+        for (SudokuBoard freshBoard : freshBoards) {
+            regionErrors(freshBoard, blackhole);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkBoards.FRESH_BOARDS_PER_INVOCATION)
+    public void boardAnalysis(Blackhole blackhole) {
+        for (SudokuBoard freshBoard : freshBoards) {
+            blackhole.consume(BoardAnalysis.of(freshBoard));
+        }
+    }
+
+    private static void regionErrors(SudokuBoard freshBoard, Blackhole blackhole) {
+        for (int i = 1; i <= freshBoard.regionSize(); ++i) {
+            blackhole.consume(freshBoard.row(i).getDuplicateValuesErrors());
+            blackhole.consume(freshBoard.row(i).getImpossibleToFillValueErrors());
+            blackhole.consume(freshBoard.column(i).getDuplicateValuesErrors());
+            blackhole.consume(freshBoard.column(i).getImpossibleToFillValueErrors());
+        }
+        for (int boxRow = 1; boxRow <= freshBoard.size(); ++boxRow) {
+            for (int boxColumn = 1; boxColumn <= freshBoard.size(); ++boxColumn) {
+                SudokuBoard.Box box = freshBoard.box(boxRow, boxColumn);
+                blackhole.consume(box.getDuplicateValuesErrors());
+                blackhole.consume(box.getImpossibleToFillValueErrors());
+            }
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package com.github.jldelarbre;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+
+/**
+ * Immutable result of the analysis of a board, computed in one pass and held in primitive arrays, so that its
+ * consumers (the GUI mainly) read it without any analysis work nor allocation.<br>
+ * Sets of values are bit masks: bit {@code (value - 1)} is set when {@code value} belongs to the set. Rows, columns
+ * and boxes are indexed from 1, like in {@link SudokuBoard}.<br>
+ * The cheap part of the analysis (values, duplicates, missing values, constraint level 0 candidates) always covers the
+ * whole board. The costly part (constraint level {@code USED_CONSTRAINT_LEVEL}) only covers the cells and regions of
+ * a {@link Scope}: outside of it, masks are 0 and flags are false.<br>
+ * Units are read from the {@link ConstraintGraph} of the board: variant regions take part in the duplicates and the
+ * candidates, while missing and impossible-to-fill values are given for rows, columns and boxes.
+ */
+public final class BoardAnalysis {
+
+    /**
+     * Minimum number of empty cells for the candidates to be computed in parallel, set with the system property
+     * {@code sudoku.parallelismThreshold}.
+     */
+    static final int PARALLELISM_THRESHOLD = Integer.getInteger("sudoku.parallelismThreshold", 200);
+
+    private final int size;
+    private final int regionSize;
+    private final ConstraintGraph graph;
+    private final Scope scope;
+    private final int[] values;
+    private final boolean[] duplicateValues;
+    private final long[] possibleValues;
+    private final long[] uniquePositionValues;
+    private final long[] candidateValues;
+    private final boolean[] unfillable;
+    private final long[] rowMissingValues;
+    private final long[] columnMissingValues;
+    private final long[] boxMissingValues;
+    private final long[] rowImpossibleToFillValues;
+    private final long[] columnImpossibleToFillValues;
+    private final long[] boxImpossibleToFillValues;
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    /**
+     * Analysis phases, timed for diagnostics. Hints are the candidate values of the cells and the missing values of
+     * the regions.
+     */
+    public enum Phase {
+        VALUES, DUPLICATES, HINTS, UNIQUE_VALUES, IMPOSSIBLE_TO_FILL
+    }
+
+    private BoardAnalysis(SudokuBoard board, Scope scope) {
+        if (board.maxValue() > Long.SIZE) {
+            throw new IllegalArgumentException("Size = " + board.size() + " is too large to be analysed");
+        }
+        size = board.size();
+        regionSize = board.regionSize();
+        graph = board.constraintGraph();
+        this.scope = scope;
+        values = board.toValues();
+        int cellCount = values.length;
+        duplicateValues = new boolean[cellCount];
+        possibleValues = new long[cellCount];
+        uniquePositionValues = new long[cellCount];
+        candidateValues = new long[cellCount];
+        unfillable = new boolean[cellCount];
+        rowMissingValues = new long[regionSize];
+        columnMissingValues = new long[regionSize];
+        boxMissingValues = new long[regionSize];
+        rowImpossibleToFillValues = new long[regionSize];
+        columnImpossibleToFillValues = new long[regionSize];
+        boxImpossibleToFillValues = new long[regionSize];
+    }
+
+    /**
+     * @return analysis of the whole board
+     */
+    public static BoardAnalysis of(SudokuBoard board) {
+        BoardAnalysis analysis = new BoardAnalysis(board, Scope.wholeBoard(board));
+        analysis.analyseValues();
+        analysis.analyseCandidates(board, false);
+        return analysis;
+    }
+
+    /**
+     * @return analysis of the cheap part only, its scope is empty
+     */
+    public static BoardAnalysis basic(SudokuBoard board) {
+        BoardAnalysis analysis = new BoardAnalysis(board, Scope.EMPTY);
+        analysis.analyseValues();
+        return analysis;
+    }
+
+    /**
+     * @return analysis of the board within the given scope, or empty if the computation has been interrupted
+     */
+    static Optional<BoardAnalysis> compute(SudokuBoard board, Scope scope) {
+        BoardAnalysis analysis = new BoardAnalysis(board, scope);
+        analysis.analyseValues();
+        if (!analysis.analyseCandidates(board, true)) {
+            return Optional.empty();
+        }
+        return Optional.of(analysis);
+    }
+
+    /**
+     * Values, duplicates, missing values, level 0 candidates and level 0 unique position values, with bit masks only.
+     */
+    private void analyseValues() {
+        long phaseStart = System.nanoTime();
+        long allValues = allValuesMask(regionSize);
+        int unitCount = graph.unitCount();
+        long[] unitUsed = new long[unitCount];
+        long[] unitUsedTwice = new long[unitCount];
+        for (int cellIndex = 0; cellIndex < values.length; ++cellIndex) {
+            if (values[cellIndex] == 0) {
+                continue;
+            }
+            long valueBit = 1L << (values[cellIndex] - 1);
+            for (int unit : graph.cellUnits(cellIndex)) {
+                unitUsedTwice[unit] |= unitUsed[unit] & valueBit;
+                unitUsed[unit] |= valueBit;
+            }
+        }
+        phaseStart = endPhase(Phase.VALUES, phaseStart);
+
+        SudokuEvents.DuplicateCheck duplicateCheck = new SudokuEvents.DuplicateCheck();
+        duplicateCheck.begin();
+        int duplicateCells = 0;
+        for (int cellIndex = 0; cellIndex < values.length; ++cellIndex) {
+            if (values[cellIndex] != 0) {
+                long usedTwice = 0;
+                for (int unit : graph.cellUnits(cellIndex)) {
+                    usedTwice |= unitUsedTwice[unit];
+                }
+                duplicateValues[cellIndex] = (usedTwice & (1L << (values[cellIndex] - 1))) != 0;
+                if (duplicateValues[cellIndex]) {
+                    ++duplicateCells;
+                }
+            }
+        }
+        duplicateCheck.size = size;
+        duplicateCheck.duplicateCells = duplicateCells;
+        duplicateCheck.commit();
+        phaseStart = endPhase(Phase.DUPLICATES, phaseStart);
+
+        for (int i = 0; i < regionSize; ++i) {
+            rowMissingValues[i] = allValues & ~unitUsed[i];
+            columnMissingValues[i] = allValues & ~unitUsed[regionSize + i];
+            boxMissingValues[i] = allValues & ~unitUsed[2 * regionSize + i];
+        }
+        // Values a cell cannot hold because of a unit: its used values, and for a cage the values left out by its sum
+        long[] unitExcluded = unitUsed.clone();
+        for (int cage : graph.cageUnits()) {
+            int placedSum = 0;
+            int emptyCells = 0;
+            for (int cellIndex : graph.unitCells(cage)) {
+                placedSum += values[cellIndex];
+                emptyCells += values[cellIndex] == 0 ? 1 : 0;
+            }
+            long availableValues = allValues & ~unitUsed[cage];
+            unitExcluded[cage] |= availableValues & ~ConstraintGraph.cageCandidates(
+                    availableValues, graph.cageSum(cage) - placedSum, emptyCells);
+        }
+        // A possible value found in a single cell of a complete unit is a unique position value of this cell
+        long[] unitPossibleOnce = new long[unitCount];
+        long[] unitPossibleTwice = new long[unitCount];
+        for (int cellIndex = 0; cellIndex < values.length; ++cellIndex) {
+            if (values[cellIndex] != 0) {
+                continue;
+            }
+            long excluded = 0;
+            for (int unit : graph.cellUnits(cellIndex)) {
+                excluded |= unitExcluded[unit];
+            }
+            long possible = allValues & ~excluded;
+            possibleValues[cellIndex] = possible;
+            for (int unit : graph.cellUnits(cellIndex)) {
+                unitPossibleTwice[unit] |= unitPossibleOnce[unit] & possible;
+                unitPossibleOnce[unit] |= possible;
+            }
+        }
+        phaseStart = endPhase(Phase.HINTS, phaseStart);
+
+        for (int cellIndex = 0; cellIndex < values.length; ++cellIndex) {
+            long possible = possibleValues[cellIndex];
+            long uniquePosition = 0;
+            for (int unit : graph.cellUnits(cellIndex)) {
+                if (graph.isComplete(unit)) {
+                    uniquePosition |= unitPossibleOnce[unit] & ~unitPossibleTwice[unit];
+                }
+            }
+            uniquePosition &= possible;
+            if (Long.bitCount(possible) <= 1 || uniquePosition == 0) {
+                uniquePositionValues[cellIndex] = possible;
+            } else {
+                uniquePositionValues[cellIndex] = Long.lowestOneBit(uniquePosition);
+            }
+        }
+        endPhase(Phase.UNIQUE_VALUES, phaseStart);
+    }
+
+    /**
+     * Level {@code USED_CONSTRAINT_LEVEL} analysis of the cells and regions of the scope, relying on the candidate
+     * caches of the board. Only the cells the scope needs are filled in parallel, so that a small viewport on a large
+     * board does not pay for the whole board.
+     *
+     * @return false when interrupted before the end of the analysis
+     */
+    private boolean analyseCandidates(SudokuBoard board, boolean interruptible) {
+        long phaseStart = System.nanoTime();
+        if (!scope.isEmpty()
+            && !board.computeCandidatesInParallel(USED_CONSTRAINT_LEVEL, scopeCells(board), ForkJoinPool.commonPool(),
+                                                  PARALLELISM_THRESHOLD)
+            && interruptible) {
+            return false;
+        }
+        SudokuEvents.CandidateSweep candidateSweep = new SudokuEvents.CandidateSweep();
+        candidateSweep.begin();
+        int emptyCells = 0;
+        long[] eliminationCandidates = new long[values.length];
+        BitSet eliminationComputed = new BitSet(values.length);
+        for (int row = scope.firstRow(); row <= scope.lastRow(); ++row) {
+            for (int column = scope.firstColumn(); column <= scope.lastColumn(); ++column) {
+                if (interruptible && Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                int cellIndex = cellIndex(row, column);
+                if (values[cellIndex] != 0) {
+                    continue;
+                }
+                ++emptyCells;
+                SudokuBoard.Cell cell = board.cell(row, column);
+                unfillable[cellIndex] = eliminationCandidates(cell, eliminationCandidates, eliminationComputed) == 0;
+                if (scope.withCandidateValues()) {
+                    candidateValues[cellIndex] =
+                        toMask(cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(USED_CONSTRAINT_LEVEL));
+                }
+            }
+        }
+        candidateSweep.size = size;
+        candidateSweep.constraintLevel = USED_CONSTRAINT_LEVEL;
+        candidateSweep.emptyCells = emptyCells;
+        candidateSweep.commit();
+        phaseStart = endPhase(Phase.HINTS, phaseStart);
+
+        SudokuEvents.ImpossibleToFillCheck impossibleToFillCheck = new SudokuEvents.ImpossibleToFillCheck();
+        impossibleToFillCheck.begin();
+        for (int i = 1; i <= regionSize; ++i) {
+            if (interruptible && Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            if (scope.containsRow(i)) {
+                rowImpossibleToFillValues[i - 1] = rowMissingValues[i - 1]
+                        & ~eliminationCandidates(board.row(i), eliminationCandidates, eliminationComputed);
+            }
+            if (scope.containsColumn(i)) {
+                columnImpossibleToFillValues[i - 1] = columnMissingValues[i - 1]
+                        & ~eliminationCandidates(board.column(i), eliminationCandidates, eliminationComputed);
+            }
+        }
+        for (int boxRow = 1; boxRow <= size; ++boxRow) {
+            for (int boxColumn = 1; boxColumn <= size; ++boxColumn) {
+                if (interruptible && Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                int box = (boxRow - 1) * size + (boxColumn - 1);
+                if (scope.containsBox(box + 1)) {
+                    boxImpossibleToFillValues[box] = boxMissingValues[box]
+                            & ~eliminationCandidates(board.box(boxRow, boxColumn), eliminationCandidates, eliminationComputed);
+                }
+            }
+        }
+        if (impossibleToFillCheck.shouldCommit()) {
+            impossibleToFillCheck.size = size;
+            impossibleToFillCheck.impossibleToFillValues = bitCount(rowImpossibleToFillValues)
+                    + bitCount(columnImpossibleToFillValues) + bitCount(boxImpossibleToFillValues);
+            impossibleToFillCheck.commit();
+        }
+        endPhase(Phase.IMPOSSIBLE_TO_FILL, phaseStart);
+        return true;
+    }
+
+    /**
+     * @return cells of the rectangle and of the regions of the scope
+     */
+    private Set<SudokuBoard.Cell> scopeCells(SudokuBoard board) {
+        Set<SudokuBoard.Cell> cells = new LinkedHashSet<>();
+        for (int row = scope.firstRow(); row <= scope.lastRow(); ++row) {
+            for (int column = scope.firstColumn(); column <= scope.lastColumn(); ++column) {
+                cells.add(board.cell(row, column));
+            }
+        }
+        for (int i = 1; i <= regionSize; ++i) {
+            if (scope.containsRow(i)) {
+                cells.addAll(board.row(i).cells());
+            }
+            if (scope.containsColumn(i)) {
+                cells.addAll(board.column(i).cells());
+            }
+        }
+        for (int boxRow = 1; boxRow <= size; ++boxRow) {
+            for (int boxColumn = 1; boxColumn <= size; ++boxColumn) {
+                if (scope.containsBox((boxRow - 1) * size + boxColumn)) {
+                    cells.addAll(board.box(boxRow, boxColumn).cells());
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static int bitCount(long[] masks) {
+        int count = 0;
+        for (long mask : masks) {
+            count += Long.bitCount(mask);
+        }
+        return count;
+    }
+
+    /**
+     * @return end time of the phase, which is the start time of the next one
+     */
+    private long endPhase(Phase phase, long phaseStart) {
+        long phaseEnd = System.nanoTime();
+        phaseNanos[phase.ordinal()] += phaseEnd - phaseStart;
+        SudokuMetrics.Counter.ANALYSIS_NANOS.add(phaseEnd - phaseStart);
+        return phaseEnd;
+    }
+
+    /**
+     * @return union of the candidates of the empty cells of the region
+     */
+    private long eliminationCandidates(SudokuBoard.Region region, long[] eliminationCandidates,
+                                       BitSet eliminationComputed) {
+        long regionCandidates = 0;
+        for (SudokuBoard.Cell cell : region.cells()) {
+            if (values[cellIndex(cell.rowIndex(), cell.columnIndex())] == 0) {
+                regionCandidates |= eliminationCandidates(cell, eliminationCandidates, eliminationComputed);
+            }
+        }
+        return regionCandidates;
+    }
+
+    private long eliminationCandidates(SudokuBoard.Cell cell, long[] eliminationCandidates,
+                                       BitSet eliminationComputed) {
+        int cellIndex = cellIndex(cell.rowIndex(), cell.columnIndex());
+        if (!eliminationComputed.get(cellIndex)) {
+            eliminationCandidates[cellIndex] =
+                toMask(cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(USED_CONSTRAINT_LEVEL));
+            eliminationComputed.set(cellIndex);
+        }
+        return eliminationCandidates[cellIndex];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return time spent in the given phase while computing this analysis
+     */
+    public long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public int regionSize() {
+        return regionSize;
+    }
+
+    public Scope scope() {
+        return scope;
+    }
+
+    /**
+     * @return value of the cell, 0 when empty
+     */
+    public int value(int row, int column) {
+        return values[cellIndex(row, column)];
+    }
+
+    public boolean isDuplicateValue(int row, int column) {
+        return duplicateValues[cellIndex(row, column)];
+    }
+
+    /**
+     * @return values that do not produce a duplicate, see {@link SudokuBoard.Cell#getPossibleValuesThatDoNotProduceDuplicate()}
+     */
+    public long possibleValuesMask(int row, int column) {
+        return possibleValues[cellIndex(row, column)];
+    }
+
+    /**
+     * @return see {@link SudokuBoard.Cell#getRemainingCandidateValuesUniquePositionValueExtractedIfAny()}
+     */
+    public long uniquePositionValuesMask(int row, int column) {
+        return uniquePositionValues[cellIndex(row, column)];
+    }
+
+    /**
+     * @return see {@link SudokuBoard.Cell#getRemainingCandidateValuesUniquePositionValueExtractedIfAny(int)} at
+     * constraint level {@code USED_CONSTRAINT_LEVEL}, when the scope has candidate values
+     */
+    public long candidateValuesMask(int row, int column) {
+        return candidateValues[cellIndex(row, column)];
+    }
+
+    /**
+     * @return true for an empty cell without any candidate value left, see {@link SudokuBoard#unfillableErroneousCells()}
+     */
+    public boolean isUnfillable(int row, int column) {
+        return unfillable[cellIndex(row, column)];
+    }
+
+    public long rowMissingValuesMask(int row) {
+        return rowMissingValues[row - 1];
+    }
+
+    public long columnMissingValuesMask(int column) {
+        return columnMissingValues[column - 1];
+    }
+
+    public long boxMissingValuesMask(int boxRow, int boxColumn) {
+        return boxMissingValues[(boxRow - 1) * size + (boxColumn - 1)];
+    }
+
+    public long rowImpossibleToFillValuesMask(int row) {
+        return rowImpossibleToFillValues[row - 1];
+    }
+
+    public long columnImpossibleToFillValuesMask(int column) {
+        return columnImpossibleToFillValues[column - 1];
+    }
+
+    public long boxImpossibleToFillValuesMask(int boxRow, int boxColumn) {
+        return boxImpossibleToFillValues[(boxRow - 1) * size + (boxColumn - 1)];
+    }
+
+    public static SortedSet<Integer> toValues(long mask) {
+        ImmutableSortedSet.Builder<Integer> valuesBuilder = ImmutableSortedSet.naturalOrder();
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            valuesBuilder.add(Long.numberOfTrailingZeros(remaining) + 1);
+        }
+        return valuesBuilder.build();
+    }
+
+    static long toMask(Collection<Integer> values) {
+        long mask = 0;
+        for (int value : values) {
+            mask |= 1L << (value - 1);
+        }
+        return mask;
+    }
+
+    private static long allValuesMask(int maxValue) {
+        return maxValue == Long.SIZE ? -1L : (1L << maxValue) - 1;
+    }
+
+    private int cellIndex(int row, int column) {
+        return (row - 1) * regionSize + (column - 1);
+    }
+
+    /**
+     * Part of the board covered by the costly analysis: a rectangle of cells, and sets of rows, columns and boxes
+     * (bit {@code i} set for the region of index {@code i}, boxes being numbered from 1 row after row).
+     *
+     * @param withCandidateValues true to compute the candidate values of the cells, false for unfillable cells only
+     */
+    public record Scope(int firstRow, int lastRow, int firstColumn, int lastColumn,
+                        BitSet rows, BitSet columns, BitSet boxes, boolean withCandidateValues) {
+
+        public static final Scope EMPTY = new Scope(1, 0, 1, 0, new BitSet(), new BitSet(), new BitSet(), false);
+
+        public Scope {
+            rows = (BitSet) rows.clone();
+            columns = (BitSet) columns.clone();
+            boxes = (BitSet) boxes.clone();
+        }
+
+        public static Scope wholeBoard(SudokuBoard board) {
+            BitSet regions = new BitSet();
+            regions.set(1, board.regionSize() + 1);
+            return new Scope(1, board.regionSize(), 1, board.regionSize(), regions, regions, regions, true);
+        }
+
+        boolean isEmpty() {
+            return (firstRow > lastRow || firstColumn > lastColumn) && rows.isEmpty() && columns.isEmpty() && boxes.isEmpty();
+        }
+
+        boolean containsRow(int row) {
+            return rows.get(row);
+        }
+
+        boolean containsColumn(int column) {
+            return columns.get(column);
+        }
+
+        /**
+         * @param box box number, from 1 row after row
+         */
+        boolean containsBox(int box) {
+            return boxes.get(box);
+        }
+
+        @Override
+        public BitSet rows() {
+            return (BitSet) rows.clone();
+        }
+
+        @Override
+        public BitSet columns() {
+            return (BitSet) columns.clone();
+        }
+
+        @Override
+        public BitSet boxes() {
+            return (BitSet) boxes.clone();
+        }
+    }
+}
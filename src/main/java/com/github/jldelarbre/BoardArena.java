@@ -0,0 +1,195 @@
+package com.github.jldelarbre;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only store of boards of the same size, packed one byte per cell (row after row, 0 for an empty cell) in
+ * direct byte buffers, out of the Java heap. Millions of boards then cost a few buffer objects instead of millions of
+ * {@link SudokuBoard} instances with their cells, regions and caches.<br>
+ * Boards are read through {@link View}s by index; a {@link SudokuBoard} is only built on demand.<br>
+ * Appends shall not run concurrently with other calls. Once appended, boards may be read from any thread.
+ */
+public final class BoardArena {
+
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final int size;
+    private final int regionSize;
+    private final int cellCount;
+    private final int boardsPerChunk;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int boardCount;
+
+    public BoardArena(int size) {
+        this.size = size;
+        this.regionSize = size * size;
+        if (size < 1 || regionSize > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Size = " + size + " cannot be packed in bytes");
+        }
+        this.cellCount = regionSize * regionSize;
+        this.boardsPerChunk = Math.max(1, CHUNK_BYTES / cellCount);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int boardCount() {
+        return boardCount;
+    }
+
+    /**
+     * @return index of the appended board
+     */
+    public int append(SudokuBoard board) {
+        if (board.size() != size) {
+            throw new IllegalArgumentException("Board size = " + board.size() + " shall be " + size);
+        }
+        int[] values = board.toValues();
+        ByteBuffer chunk = chunkToAppend();
+        for (int value : values) {
+            chunk.put((byte) value);
+        }
+        return boardCount++;
+    }
+
+    /**
+     * Bulk append of boards in the packed layout of {@link GridValidator}.
+     *
+     * @param grids packed boards, one byte per cell
+     * @param offset index in {@code grids} of the first cell of the first board to append
+     * @param count number of boards to append
+     */
+    public void appendPacked(byte[] grids, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + (long) count * cellCount > grids.length) {
+            throw new IndexOutOfBoundsException("Grids out of bound: offset = " + offset + ", count = " + count
+                                                + " - length = " + grids.length);
+        }
+        for (int i = offset; i < offset + count * cellCount; ++i) {
+            int value = grids[i];
+            if (value < 0 || value > regionSize) {
+                throw new IllegalArgumentException("Value = " + value + " shall be in [0 " + regionSize + "]");
+            }
+        }
+        int remaining = count;
+        int position = offset;
+        while (remaining > 0) {
+            ByteBuffer chunk = chunkToAppend();
+            int appended = Math.min(remaining, chunk.remaining() / cellCount);
+            chunk.put(grids, position, appended * cellCount);
+            position += appended * cellCount;
+            remaining -= appended;
+            boardCount += appended;
+        }
+    }
+
+    /**
+     * Bulk export of boards in the packed layout of {@link GridValidator}.
+     *
+     * @return packed boards from index {@code first}, {@code count} boards
+     */
+    public byte[] copyPacked(int first, int count) {
+        if (first < 0 || count < 0 || first + count > boardCount) {
+            throw new IndexOutOfBoundsException("Boards out of bound: first = " + first + ", count = " + count
+                                                + " - board count = " + boardCount);
+        }
+        byte[] grids = new byte[count * cellCount];
+        int board = first;
+        while (board < first + count) {
+            int inChunk = Math.min(first + count - board, boardsPerChunk - board % boardsPerChunk);
+            chunks.get(board / boardsPerChunk)
+                    .get((board % boardsPerChunk) * cellCount, grids, (board - first) * cellCount, inChunk * cellCount);
+            board += inChunk;
+        }
+        return grids;
+    }
+
+    public View view(int index) {
+        checkIndex(index);
+        return new View(index);
+    }
+
+    /**
+     * Visits every board with the same view, moved from board to board: it shall not be kept after the call.
+     */
+    public void forEach(Consumer<View> action) {
+        View view = new View(0);
+        for (int index = 0; index < boardCount; ++index) {
+            view.index = index;
+            action.accept(view);
+        }
+    }
+
+    private ByteBuffer chunkToAppend() {
+        if (boardCount == chunks.size() * boardsPerChunk) {
+            chunks.add(ByteBuffer.allocateDirect(boardsPerChunk * cellCount));
+        }
+        return chunks.getLast();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= boardCount) {
+            throw new IndexOutOfBoundsException("Index = " + index + " - board count = " + boardCount);
+        }
+    }
+
+    /**
+     * Read-only view of a board of the arena. Reads go to the packed cells, no board is built.
+     */
+    public final class View {
+        private int index;
+
+        private View(int index) {
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        /**
+         * @return value of the cell, 0 when empty
+         */
+        public int value(int row, int column) {
+            if (row < 1 || row > regionSize || column < 1 || column > regionSize) {
+                throw new IndexOutOfBoundsException("Row, column out of bound: (" + row + ", " + column
+                                                    + ") - regionSize = " + regionSize);
+            }
+            return cell((row - 1) * regionSize + column - 1);
+        }
+
+        public int[] toValues() {
+            int[] values = new int[cellCount];
+            for (int cell = 0; cell < cellCount; ++cell) {
+                values[cell] = cell(cell);
+            }
+            return values;
+        }
+
+        /**
+         * @return the board in the compact line format, see {@link SudokuBoard#toLine()}
+         */
+        public String toLine() {
+            StringBuilder line = new StringBuilder(cellCount);
+            for (int cell = 0; cell < cellCount; ++cell) {
+                int value = cell(cell);
+                line.append(value == 0 ? '.' : SudokuBoard.valueChar(value));
+            }
+            return line.toString();
+        }
+
+        /**
+         * @return a new board, giving access to the whole query API
+         */
+        public SudokuBoard toBoard() {
+            return SudokuBoard.fromValues(size, toValues());
+        }
+
+        private int cell(int cell) {
+            return chunks.get(index / boardsPerChunk).get((index % boardsPerChunk) * cellCount + cell);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.jldelarbre;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Occurrence count of every value in every unit (row, column, box, variant region) of a board, kept up to date cell
+ * edit after cell edit, so that duplicate values are known without scanning the board.<br>
+ * Units and cells are numbered as in {@link ConstraintGraph}. Value 0 stands for an empty cell.<br>
+ * Instances are immutable. Counts are held in one slice per unit and values in one slice per row: an edit returns a
+ * new tracker sharing every slice but the ones of the units and the row of the edited cell, which are copied.
+ */
+final class ConflictTracker {
+
+    private final ConstraintGraph graph;
+    private final int size;
+    private final int regionSize;
+    private final int[][] rowValues;
+    /**
+     * Per unit: occurrence count of each value at index {@code value - 1}, then the number of values duplicated in the
+     * unit at index {@code regionSize}
+     */
+    private final int[][] unitCounts;
+    private final int duplicatedUnitValues;
+
+    private ConflictTracker(ConstraintGraph graph, int[][] rowValues, int[][] unitCounts, int duplicatedUnitValues) {
+        this.graph = graph;
+        this.size = graph.size();
+        this.regionSize = graph.regionSize();
+        this.rowValues = rowValues;
+        this.unitCounts = unitCounts;
+        this.duplicatedUnitValues = duplicatedUnitValues;
+    }
+
+    static ConflictTracker of(ConstraintGraph graph, int[] values) {
+        int regionSize = graph.regionSize();
+        int[][] rowValues = new int[regionSize][];
+        for (int row = 0; row < regionSize; ++row) {
+            rowValues[row] = Arrays.copyOfRange(values, row * regionSize, (row + 1) * regionSize);
+        }
+        int[][] unitCounts = new int[graph.unitCount()][regionSize + 1];
+        ConflictTracker tracker = new ConflictTracker(graph, rowValues, unitCounts, 0);
+        int duplicatedUnitValues = 0;
+        for (int cell = 0; cell < values.length; ++cell) {
+            if (values[cell] != 0) {
+                for (int unit : graph.cellUnits(cell)) {
+                    duplicatedUnitValues += tracker.addOccurrence(unitCounts[unit], values[cell]);
+                }
+            }
+        }
+        return new ConflictTracker(graph, rowValues, unitCounts, duplicatedUnitValues);
+    }
+
+    /**
+     * @param value new value of the cell, 0 to empty it
+     */
+    ConflictTracker withValue(int cell, int value) {
+        int previousValue = value(cell);
+        if (previousValue == value) {
+            return this;
+        }
+        int[][] updatedUnitCounts = unitCounts.clone();
+        int duplicatedUnitValues = this.duplicatedUnitValues;
+        for (int unit : graph.cellUnits(cell)) {
+            int[] counts = unitCounts[unit].clone();
+            if (previousValue != 0) {
+                duplicatedUnitValues -= removeOccurrence(counts, previousValue);
+            }
+            if (value != 0) {
+                duplicatedUnitValues += addOccurrence(counts, value);
+            }
+            updatedUnitCounts[unit] = counts;
+        }
+        int[][] updatedRowValues = rowValues.clone();
+        updatedRowValues[cell / regionSize] = rowValues[cell / regionSize].clone();
+        updatedRowValues[cell / regionSize][cell % regionSize] = value;
+        return new ConflictTracker(graph, updatedRowValues, updatedUnitCounts, duplicatedUnitValues);
+    }
+
+    /**
+     * Constant time.
+     */
+    boolean hasConflicts() {
+        return duplicatedUnitValues > 0;
+    }
+
+    /**
+     * Constant time: only the counts of the units of the cell are read.
+     */
+    boolean isConflicting(int cell) {
+        int value = value(cell);
+        if (value == 0) {
+            return false;
+        }
+        for (int unit : graph.cellUnits(cell)) {
+            if (unitCounts[unit][value - 1] > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only the units holding a duplicated value are visited.
+     *
+     * @return cells whose value is duplicated in one of their units, in increasing order
+     */
+    int[] conflictingCells() {
+        if (duplicatedUnitValues == 0) {
+            return new int[0];
+        }
+        BitSet conflictingCells = new BitSet();
+        for (int unit = 0; unit < unitCounts.length; ++unit) {
+            if (unitCounts[unit][regionSize] > 0) {
+                for (int cell : conflictingCells(unit)) {
+                    conflictingCells.set(cell);
+                }
+            }
+        }
+        return conflictingCells.stream().toArray();
+    }
+
+    /**
+     * @return cells of the unit whose value is duplicated in this unit
+     */
+    int[] conflictingCells(int unit) {
+        int[] counts = unitCounts[unit];
+        if (counts[regionSize] == 0) {
+            return new int[0];
+        }
+        int[] cells = graph.unitCells(unit);
+        int[] unitConflictingCells = new int[cells.length];
+        int conflictCount = 0;
+        for (int cell : cells) {
+            int value = value(cell);
+            if (value != 0 && counts[value - 1] > 1) {
+                unitConflictingCells[conflictCount++] = cell;
+            }
+        }
+        return Arrays.copyOf(unitConflictingCells, conflictCount);
+    }
+
+    int count(int unit, int value) {
+        return unitCounts[unit][value - 1];
+    }
+
+    int rowUnit(int row) {
+        return row - 1;
+    }
+
+    int columnUnit(int column) {
+        return regionSize + column - 1;
+    }
+
+    int boxUnit(int boxRow, int boxColumn) {
+        return graph.boxUnit((boxRow - 1) * size + boxColumn - 1);
+    }
+
+    private int value(int cell) {
+        return rowValues[cell / regionSize][cell % regionSize];
+    }
+
+    /**
+     * @return 1 when the value becomes duplicated in the unit, 0 otherwise
+     */
+    private int addOccurrence(int[] counts, int value) {
+        if (++counts[value - 1] == 2) {
+            ++counts[regionSize];
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return 1 when the value stops being duplicated in the unit, 0 otherwise
+     */
+    private int removeOccurrence(int[] counts, int value) {
+        if (counts[value - 1]-- == 2) {
+            --counts[regionSize];
+            return 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,370 @@
+package com.github.jldelarbre;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Units of a board compiled into flat index arrays: the cells of each unit, the units and the peers of each cell.<br>
+ * A unit is a group of cells holding distinct values. Units are numbered from 0: rows first, then columns, then boxes
+ * row after row (or the regions of a jigsaw layout, replacing the boxes), then the extra units of the variants in the
+ * order they have been added. Cells are numbered from 0 row after row.<br>
+ * A unit holding {@code regionSize} cells is complete: it holds every value once. Smaller units are sum cages (killer
+ * sudoku): their values are distinct and add up to the sum of the cage.<br>
+ * Instances are immutable. The classic graph of a size is shared, see {@link #classic(int)}.
+ */
+public final class ConstraintGraph {
+
+    public enum UnitKind {
+        ROW, COLUMN, BOX, JIGSAW, DIAGONAL, WINDOW, CAGE
+    }
+
+    private static final Map<Integer, ConstraintGraph> CLASSIC_GRAPHS = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int regionSize;
+    private final int cellCount;
+    private final List<UnitKind> unitKinds;
+    private final int[][] unitCells;
+    private final int[] cageSums;
+    private final int[][] cellUnits;
+    private final int[][] cellPeers;
+    private final int[] cageUnits;
+
+    private ConstraintGraph(int size, List<UnitKind> unitKinds, List<int[]> unitCells, int[] cageSums) {
+        this.size = size;
+        this.regionSize = size * size;
+        this.cellCount = regionSize * regionSize;
+        this.unitKinds = ImmutableList.copyOf(unitKinds);
+        this.unitCells = unitCells.toArray(int[][]::new);
+        this.cageSums = cageSums;
+        this.cageUnits = IntStream.range(0, cageSums.length).filter(unit -> cageSums[unit] > 0).toArray();
+
+        int[] cellUnitCounts = new int[cellCount];
+        for (int[] cells : this.unitCells) {
+            for (int cell : cells) {
+                ++cellUnitCounts[cell];
+            }
+        }
+        cellUnits = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; ++cell) {
+            cellUnits[cell] = new int[cellUnitCounts[cell]];
+        }
+        Arrays.fill(cellUnitCounts, 0);
+        for (int unit = 0; unit < this.unitCells.length; ++unit) {
+            for (int cell : this.unitCells[unit]) {
+                cellUnits[cell][cellUnitCounts[cell]++] = unit;
+            }
+        }
+
+        cellPeers = new int[cellCount][];
+        int[] peerMarks = new int[cellCount];
+        int[] peers = new int[cellCount];
+        for (int cell = 0; cell < cellCount; ++cell) {
+            int peerCount = 0;
+            for (int unit : cellUnits[cell]) {
+                for (int peer : this.unitCells[unit]) {
+                    if (peer != cell && peerMarks[peer] != cell + 1) {
+                        peerMarks[peer] = cell + 1;
+                        peers[peerCount++] = peer;
+                    }
+                }
+            }
+            cellPeers[cell] = Arrays.copyOf(peers, peerCount);
+            Arrays.sort(cellPeers[cell]);
+        }
+    }
+
+    /**
+     * @return graph of the rows, columns and boxes of the classic board of this size
+     */
+    public static ConstraintGraph classic(int size) {
+        return CLASSIC_GRAPHS.computeIfAbsent(size, classicSize -> builder(classicSize).build());
+    }
+
+    public static Builder builder(int size) {
+        return new Builder(size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int regionSize() {
+        return regionSize;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    public int unitCount() {
+        return unitCells.length;
+    }
+
+    public UnitKind unitKind(int unit) {
+        return unitKinds.get(unit);
+    }
+
+    /**
+     * @return sum of the cage, 0 when the unit is not a cage
+     */
+    public int cageSum(int unit) {
+        return cageSums[unit];
+    }
+
+    /**
+     * @return mask of every value, the region size shall not exceed 64
+     */
+    long allValuesMask() {
+        return regionSize == Long.SIZE ? -1L : (1L << regionSize) - 1;
+    }
+
+    public boolean isComplete(int unit) {
+        return unitCells[unit].length == regionSize;
+    }
+
+    /**
+     * @return true when the graph only holds rows, columns and boxes
+     */
+    public boolean isClassic() {
+        return unitCells.length == 3 * regionSize && unitKinds.get(2 * regionSize) == UnitKind.BOX;
+    }
+
+    int boxUnit(int boxIndex) {
+        return 2 * regionSize + boxIndex;
+    }
+
+    /**
+     * @return index (from 0) of the box, or jigsaw region, of the cell
+     */
+    int boxOf(int cell) {
+        return cellUnits[cell][2] - 2 * regionSize;
+    }
+
+    // The arrays below are shared, callers shall not modify them
+
+    int[] unitCells(int unit) {
+        return unitCells[unit];
+    }
+
+    int[] cellUnits(int cell) {
+        return cellUnits[cell];
+    }
+
+    /**
+     * @return cells sharing a unit with the cell, in increasing order
+     */
+    int[] cellPeers(int cell) {
+        return cellPeers[cell];
+    }
+
+    int[] cageUnits() {
+        return cageUnits;
+    }
+
+    /**
+     * Sum bound of a cage: a value is kept when the other empty cells of the cage can still add up to the remaining
+     * sum with distinct values of {@code availableValues}, judging by the smallest and the largest possible sums only.
+     * It never removes a value of a solution, but may keep values that no solution uses.
+     *
+     * @param availableValues mask of the values left to the empty cells of the cage
+     * @param remainingSum sum of the cage minus its placed values
+     * @param emptyCells number of empty cells of the cage
+     * @return mask of the values of {@code availableValues} an empty cell of the cage may still hold
+     */
+    static long cageCandidates(long availableValues, int remainingSum, int emptyCells) {
+        long candidates = 0;
+        for (long values = availableValues; values != 0; values &= values - 1) {
+            long valueBit = Long.lowestOneBit(values);
+            int value = Long.numberOfTrailingZeros(valueBit) + 1;
+            long otherValues = availableValues & ~valueBit;
+            int otherCells = emptyCells - 1;
+            if (Long.bitCount(otherValues) < otherCells) {
+                continue;
+            }
+            int smallestSum = 0;
+            int largestSum = 0;
+            long smallest = otherValues;
+            long largest = otherValues;
+            for (int i = 0; i < otherCells; ++i) {
+                smallestSum += Long.numberOfTrailingZeros(smallest) + 1;
+                smallest &= smallest - 1;
+                int highest = Long.SIZE - Long.numberOfLeadingZeros(largest);
+                largestSum += highest;
+                largest &= ~(1L << (highest - 1));
+            }
+            if (smallestSum <= remainingSum - value && remainingSum - value <= largestSum) {
+                candidates |= valueBit;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Rows, columns and boxes are always present; boxes may be replaced by jigsaw regions. Extra units come after them,
+     * in the order of the calls.
+     */
+    public static final class Builder {
+        private final int size;
+        private final int regionSize;
+        private int[] jigsawRegionOfCell;
+        private final List<UnitKind> extraUnitKinds = new ArrayList<>();
+        private final List<int[]> extraUnitCells = new ArrayList<>();
+        private final List<Integer> extraUnitSums = new ArrayList<>();
+
+        private Builder(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Size = " + size + " shall be positive");
+            }
+            this.size = size;
+            this.regionSize = size * size;
+        }
+
+        /**
+         * X-Sudoku: both main diagonals hold every value.
+         */
+        public Builder withDiagonals() {
+            int[] mainDiagonal = new int[regionSize];
+            int[] antiDiagonal = new int[regionSize];
+            for (int i = 0; i < regionSize; ++i) {
+                mainDiagonal[i] = i * regionSize + i;
+                antiDiagonal[i] = i * regionSize + regionSize - 1 - i;
+            }
+            return withUnit(UnitKind.DIAGONAL, mainDiagonal, 0).withUnit(UnitKind.DIAGONAL, antiDiagonal, 0);
+        }
+
+        /**
+         * Windoku: the boxes shifted by one cell from the top left corner, one cell apart, hold every value (4 windows
+         * on a 9x9 board).
+         */
+        public Builder withWindows() {
+            for (int windowRow = 0; windowRow < size - 1; ++windowRow) {
+                for (int windowColumn = 0; windowColumn < size - 1; ++windowColumn) {
+                    int[] window = new int[regionSize];
+                    for (int position = 0; position < regionSize; ++position) {
+                        int row = 1 + windowRow * (size + 1) + position / size;
+                        int column = 1 + windowColumn * (size + 1) + position % size;
+                        window[position] = row * regionSize + column;
+                    }
+                    withUnit(UnitKind.WINDOW, window, 0);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Jigsaw sudoku: irregular regions replace the boxes.
+         *
+         * @param regionOfCell index (from 0) of the region of each cell, row after row; each region holds
+         *                     {@code regionSize} cells
+         */
+        public Builder withJigsaw(int[] regionOfCell) {
+            if (regionOfCell.length != regionSize * regionSize) {
+                throw new IllegalArgumentException("Jigsaw layout length = " + regionOfCell.length + " shall be "
+                                                   + regionSize * regionSize);
+            }
+            int[] regionCellCounts = new int[regionSize];
+            for (int region : regionOfCell) {
+                if (region < 0 || region >= regionSize) {
+                    throw new IllegalArgumentException("Jigsaw region = " + region + " shall be in [0 "
+                                                       + (regionSize - 1) + "]");
+                }
+                ++regionCellCounts[region];
+            }
+            for (int region = 0; region < regionSize; ++region) {
+                if (regionCellCounts[region] != regionSize) {
+                    throw new IllegalArgumentException("Jigsaw region " + region + " holds "
+                                                       + regionCellCounts[region] + " cells instead of " + regionSize);
+                }
+            }
+            jigsawRegionOfCell = regionOfCell.clone();
+            return this;
+        }
+
+        /**
+         * Killer sudoku: the distinct values of the cells of the cage add up to the sum.
+         *
+         * @param cells cells of the cage, numbered from 0 row after row
+         */
+        public Builder withCage(int sum, int... cells) {
+            if (regionSize > Long.SIZE) {
+                throw new IllegalArgumentException("Size = " + size + " is too large for cages");
+            }
+            if (cells.length == 0 || cells.length > regionSize) {
+                throw new IllegalArgumentException("Cage cell count = " + cells.length + " shall be in [1 "
+                                                   + regionSize + "]");
+            }
+            int smallestSum = cells.length * (cells.length + 1) / 2;
+            int largestSum = cells.length * (2 * regionSize - cells.length + 1) / 2;
+            if (sum < smallestSum || sum > largestSum) {
+                throw new IllegalArgumentException("Cage sum = " + sum + " shall be in [" + smallestSum + " "
+                                                   + largestSum + "] for " + cells.length + " cells");
+            }
+            return withUnit(UnitKind.CAGE, cells, sum);
+        }
+
+        public ConstraintGraph build() {
+            int cellCount = regionSize * regionSize;
+            List<UnitKind> unitKinds = new ArrayList<>();
+            List<int[]> unitCells = new ArrayList<>();
+            for (int row = 0; row < regionSize; ++row) {
+                int[] cells = new int[regionSize];
+                for (int column = 0; column < regionSize; ++column) {
+                    cells[column] = row * regionSize + column;
+                }
+                unitKinds.add(UnitKind.ROW);
+                unitCells.add(cells);
+            }
+            for (int column = 0; column < regionSize; ++column) {
+                int[] cells = new int[regionSize];
+                for (int row = 0; row < regionSize; ++row) {
+                    cells[row] = row * regionSize + column;
+                }
+                unitKinds.add(UnitKind.COLUMN);
+                unitCells.add(cells);
+            }
+            int[][] boxCells = new int[regionSize][regionSize];
+            int[] boxCellCounts = new int[regionSize];
+            for (int cell = 0; cell < cellCount; ++cell) {
+                int row = cell / regionSize;
+                int column = cell % regionSize;
+                int box = jigsawRegionOfCell == null ? (row / size) * size + column / size : jigsawRegionOfCell[cell];
+                boxCells[box][boxCellCounts[box]++] = cell;
+            }
+            for (int[] cells : boxCells) {
+                unitKinds.add(jigsawRegionOfCell == null ? UnitKind.BOX : UnitKind.JIGSAW);
+                unitCells.add(cells);
+            }
+            unitKinds.addAll(extraUnitKinds);
+            unitCells.addAll(extraUnitCells);
+            int[] cageSums = new int[unitCells.size()];
+            for (int i = 0; i < extraUnitSums.size(); ++i) {
+                cageSums[3 * regionSize + i] = extraUnitSums.get(i);
+            }
+            return new ConstraintGraph(size, unitKinds, unitCells, cageSums);
+        }
+
+        private Builder withUnit(UnitKind kind, int[] cells, int sum) {
+            boolean[] inUnit = new boolean[regionSize * regionSize];
+            for (int cell : cells) {
+                if (cell < 0 || cell >= inUnit.length) {
+                    throw new IndexOutOfBoundsException("Cell = " + cell + " - cell count = " + inUnit.length);
+                }
+                if (inUnit[cell]) {
+                    throw new IllegalArgumentException("Cell = " + cell + " appears twice in a unit");
+                }
+                inUnit[cell] = true;
+            }
+            extraUnitKinds.add(kind);
+            extraUnitCells.add(cells.clone());
+            extraUnitSums.add(sum);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.jldelarbre;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * Every value of a board pre-rendered once for each drawing style, so that drawing a value is a single image blit
+ * instead of a text layout.<br>
+ * The atlas holds one row per style and one slot per value. A slot is wide enough for two digits, the glyph baseline
+ * is at {@code font size} pixels from the top of its slot.<br>
+ * Glyphs are rendered at the scale the board is displayed at, so that they stay sharp whatever the zoom. Positions
+ * and sizes given to {@link #draw} are in board coordinates (unscaled).
+ */
+final class GlyphAtlas {
+
+    private static final double SLOT_WIDTH_RATIO = 1.25;
+    private static final double SLOT_HEIGHT_RATIO = 1.3;
+
+    enum Style {
+        VALUE(Color.BLACK, true),
+        HINT(Color.GRAY, false),
+        UNIQUE_POSITION_VALUE(Color.GREEN, false),
+        CANDIDATE(Color.PURPLE, false),
+        ERROR(Color.RED, false);
+
+        private final Color color;
+        private final boolean valueFont;
+
+        Style(Color color, boolean valueFont) {
+            this.color = color;
+            this.valueFont = valueFont;
+        }
+    }
+
+    private final int maxValue;
+    private final double scale;
+    private final WritableImage image;
+    private final double[] fontSizes;
+    private final double[] slotWidths;
+    private final double[] slotHeights;
+    private final double[] rowTops;
+
+    private GlyphAtlas(int maxValue, double scale, Font valuesFont, Font hintsFont) {
+        this.maxValue = maxValue;
+        this.scale = scale;
+        Font scaledValuesFont = Font.font(valuesFont.getFamily(), valuesFont.getSize() * scale);
+        Font scaledHintsFont = Font.font(hintsFont.getFamily(), hintsFont.getSize() * scale);
+        Style[] styles = Style.values();
+        fontSizes = new double[styles.length];
+        slotWidths = new double[styles.length];
+        slotHeights = new double[styles.length];
+        rowTops = new double[styles.length];
+        double atlasWidth = 0;
+        double atlasHeight = 0;
+        for (Style style : styles) {
+            int i = style.ordinal();
+            fontSizes[i] = (style.valueFont ? scaledValuesFont : scaledHintsFont).getSize();
+            slotWidths[i] = Math.max(Math.ceil(fontSizes[i] * SLOT_WIDTH_RATIO), 1);
+            slotHeights[i] = Math.max(Math.ceil(fontSizes[i] * SLOT_HEIGHT_RATIO), 1);
+            rowTops[i] = atlasHeight;
+            atlasWidth = Math.max(atlasWidth, slotWidths[i] * maxValue);
+            atlasHeight += slotHeights[i];
+        }
+
+        Canvas canvas = new Canvas(atlasWidth, atlasHeight);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (Style style : styles) {
+            int i = style.ordinal();
+            gc.setFont(style.valueFont ? scaledValuesFont : scaledHintsFont);
+            gc.setFill(style.color);
+            for (int value = 1; value <= maxValue; ++value) {
+                gc.fillText(Integer.toString(value), (value - 1) * slotWidths[i], rowTops[i] + fontSizes[i]);
+            }
+        }
+        SnapshotParameters snapshotParameters = new SnapshotParameters();
+        snapshotParameters.setFill(Color.TRANSPARENT);
+        image = canvas.snapshot(snapshotParameters, null);
+    }
+
+    /**
+     * Renders the atlas, this shall be done on the JavaFX application thread.
+     *
+     * @param scale number of screen pixels per board unit
+     */
+    static GlyphAtlas render(int maxValue, double scale, Font valuesFont, Font hintsFont) {
+        return new GlyphAtlas(maxValue, scale, valuesFont, hintsFont);
+    }
+
+    boolean isRenderedFor(int maxValue, double scale) {
+        return this.maxValue == maxValue && this.scale == scale;
+    }
+
+    /**
+     * Draws a value the same way {@code gc.fillText} would with the font and color of the style.
+     *
+     * @param x left of the text
+     * @param baselineY baseline of the text
+     */
+    void draw(GraphicsContext gc, Style style, int value, double x, double baselineY) {
+        int i = style.ordinal();
+        gc.drawImage(image,
+                     (value - 1) * slotWidths[i], rowTops[i], slotWidths[i], slotHeights[i],
+                     x, baselineY - fontSizes[i] / scale, slotWidths[i] / scale, slotHeights[i] / scale);
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.jldelarbre;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk checker of complete grids, working on a packed layout: one byte per cell, row after row, grid after grid,
+ * without any {@link SudokuBoard} object.<br>
+ * A grid is valid when every cell holds a value in [1 regionSize] and every row, column and box holds every value.
+ * Values are OR-ed as bit masks (bit {@code value - 1}) per unit in a single pass over the cells, then the masks of all
+ * units are AND-ed: the grid is valid when the result holds every value.
+ */
+public final class GridValidator {
+
+    private static final Map<Integer, Layout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private GridValidator() {
+    }
+
+    /**
+     * @param size board size (3 for 9x9 grids)
+     * @param grids packed grids, its length shall be a multiple of the number of cells of a grid
+     * @return validity bitmap: bit {@code i % 64} of word {@code i / 64} is set when grid {@code i} is valid
+     */
+    public static long[] validate(int size, byte[] grids) {
+        Layout layout = layout(size);
+        if (grids.length % layout.cellCount != 0) {
+            throw new IllegalArgumentException("Length = " + grids.length + " is not a multiple of grid length = "
+                                               + layout.cellCount);
+        }
+        return validate(size, grids, 0, grids.length / layout.cellCount);
+    }
+
+    /**
+     * @param size board size (3 for 9x9 grids)
+     * @param grids packed grids
+     * @param offset index in {@code grids} of the first cell of the first grid to check
+     * @param gridCount number of grids to check
+     * @return validity bitmap: bit {@code i % 64} of word {@code i / 64} is set when grid {@code i} of the batch is valid
+     */
+    public static long[] validate(int size, byte[] grids, int offset, int gridCount) {
+        Layout layout = layout(size);
+        if (offset < 0 || gridCount < 0 || offset + (long) gridCount * layout.cellCount > grids.length) {
+            throw new IndexOutOfBoundsException("Grids out of bound: offset = " + offset + ", count = " + gridCount
+                                                + " - length = " + grids.length);
+        }
+        long[] validity = new long[(gridCount + Long.SIZE - 1) / Long.SIZE];
+        long[] columnMasks = new long[layout.regionSize];
+        long[] boxMasks = new long[layout.regionSize];
+        for (int grid = 0; grid < gridCount; ++grid) {
+            if (layout.isValid(grids, offset + grid * layout.cellCount, columnMasks, boxMasks)) {
+                validity[grid / Long.SIZE] |= 1L << grid;
+            }
+        }
+        return validity;
+    }
+
+    public static boolean isValid(long[] validity, int grid) {
+        return (validity[grid / Long.SIZE] & (1L << grid)) != 0;
+    }
+
+    /**
+     * @return boards in the packed layout read by {@link #validate(int, byte[])}, empty cells are written 0
+     */
+    public static byte[] pack(List<SudokuBoard> boards) {
+        if (boards.isEmpty()) {
+            return new byte[0];
+        }
+        int cellCount = boards.getFirst().regionSize() * boards.getFirst().regionSize();
+        byte[] grids = new byte[boards.size() * cellCount];
+        for (int i = 0; i < boards.size(); ++i) {
+            int[] values = boards.get(i).toValues();
+            if (values.length != cellCount) {
+                throw new IllegalArgumentException("Boards shall have the same size");
+            }
+            for (int cell = 0; cell < cellCount; ++cell) {
+                grids[i * cellCount + cell] = (byte) values[cell];
+            }
+        }
+        return grids;
+    }
+
+    private static Layout layout(int size) {
+        return LAYOUTS.computeIfAbsent(size, Layout::new);
+    }
+
+    private static final class Layout {
+        private final int size;
+        private final int regionSize;
+        private final int cellCount;
+        private final long allValuesMask;
+
+        private Layout(int size) {
+            this.size = size;
+            regionSize = size * size;
+            if (size < 1 || regionSize > Long.SIZE) {
+                throw new IllegalArgumentException("Size = " + size + " shall be in [1 8]");
+            }
+            cellCount = regionSize * regionSize;
+            allValuesMask = regionSize == Long.SIZE ? -1L : (1L << regionSize) - 1;
+        }
+
+        private boolean isValid(byte[] grids, int start, long[] columnMasks, long[] boxMasks) {
+            // Sign bit set as soon as a value is out of [1 regionSize], no branch in the cell loop
+            int outOfRange = 0;
+            long unitsMask = allValuesMask;
+            for (int i = 0; i < regionSize; ++i) {
+                columnMasks[i] = 0;
+            }
+            int cell = start;
+            // Boxes are checked band after band (size consecutive rows), so that only size box masks are live
+            for (int band = 0; band < size; ++band) {
+                for (int box = 0; box < size; ++box) {
+                    boxMasks[box] = 0;
+                }
+                for (int rowInBand = 0; rowInBand < size; ++rowInBand) {
+                    long rowMask = 0;
+                    int column = 0;
+                    for (int box = 0; box < size; ++box) {
+                        long boxMask = 0;
+                        for (int columnInBox = 0; columnInBox < size; ++columnInBox, ++column, ++cell) {
+                            int value = grids[cell] & 0xFF;
+                            outOfRange |= (value - 1) | (regionSize - value);
+                            long valueBit = 1L << (value - 1);
+                            boxMask |= valueBit;
+                            columnMasks[column] |= valueBit;
+                        }
+                        rowMask |= boxMask;
+                        boxMasks[box] |= boxMask;
+                    }
+                    unitsMask &= rowMask;
+                }
+                for (int box = 0; box < size; ++box) {
+                    unitsMask &= boxMasks[box];
+                }
+            }
+            for (int column = 0; column < regionSize; ++column) {
+                unitsMask &= columnMasks[column];
+            }
+            return outOfRange >= 0 && unitsMask == allValuesMask;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.jldelarbre;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the results of an operation (solve, validate...) on a board, keyed by the operation and the packed
+ * values of the board (one byte per cell). Keys and results are held as byte arrays, no {@link SudokuBoard} is kept.
+ * <br>
+ * The cache is split in segments, each one guarded by its own lock and evicting its least recently used entries once
+ * its share of the byte bound is exceeded. Results are computed out of the locks: concurrent misses on the same key
+ * compute the same result twice, the last one is kept.
+ */
+final class ResultCache {
+
+    private static final int SEGMENT_COUNT = 16;
+    // Approximate footprint of an entry besides its arrays: map node, key, array headers
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes bound of the approximate footprint of the cached entries, 0 disables the cache
+     */
+    ResultCache(long maxBytes) {
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            segments[i] = new Segment(maxBytes / SEGMENT_COUNT);
+        }
+    }
+
+    /**
+     * @param operation operation and its parameters, e.g. {@code "count-solutions limit=10"}
+     * @param values values of the board cells, row after row, 0 for an empty cell
+     * @param computation computes the result on a miss
+     * @return cached or computed result
+     */
+    String get(String operation, int[] values, Supplier<String> computation) {
+        Key key = Key.of(operation, values);
+        Segment segment = segments[(int) (key.hash >>> 32) & (SEGMENT_COUNT - 1)];
+        byte[] cachedResult = segment.get(key);
+        if (cachedResult != null) {
+            hits.increment();
+            return new String(cachedResult, StandardCharsets.UTF_8);
+        }
+        misses.increment();
+        String result = computation.get();
+        segment.put(key, result.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    long weightedBytes() {
+        long weightedBytes = 0;
+        for (Segment segment : segments) {
+            weightedBytes += segment.weightedBytes();
+        }
+        return weightedBytes;
+    }
+
+    private static long weight(Key key, byte[] result) {
+        return ENTRY_OVERHEAD_BYTES + key.operation.length() + key.values.length + result.length;
+    }
+
+    private final class Segment {
+        private final long maxBytes;
+        // Access order: the first entry is the least recently used one
+        private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weightedBytes;
+
+        private Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized byte[] get(Key key) {
+            return entries.get(key);
+        }
+
+        private synchronized void put(Key key, byte[] result) {
+            long weight = weight(key, result);
+            if (weight > maxBytes) {
+                return;
+            }
+            byte[] previousResult = entries.put(key, result);
+            weightedBytes += weight;
+            if (previousResult != null) {
+                weightedBytes -= weight(key, previousResult);
+            }
+            Iterator<Map.Entry<Key, byte[]>> leastRecentlyUsed = entries.entrySet().iterator();
+            while (weightedBytes > maxBytes) {
+                Map.Entry<Key, byte[]> entry = leastRecentlyUsed.next();
+                weightedBytes -= weight(entry.getKey(), entry.getValue());
+                leastRecentlyUsed.remove();
+                evictions.increment();
+            }
+        }
+
+        private synchronized long weightedBytes() {
+            return weightedBytes;
+        }
+    }
+
+    /**
+     * Hash and equality are computed on the packed values, the 64 bits hash also selects the segment.
+     */
+    private static final class Key {
+        private final String operation;
+        private final byte[] values;
+        private final long hash;
+
+        private Key(String operation, byte[] values, long hash) {
+            this.operation = operation;
+            this.values = values;
+            this.hash = hash;
+        }
+
+        private static Key of(String operation, int[] values) {
+            byte[] packedValues = new byte[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                packedValues[i] = (byte) values[i];
+            }
+            long hash = Hashing.murmur3_128().newHasher()
+                    .putString(operation, StandardCharsets.UTF_8)
+                    .putBytes(packedValues)
+                    .hash()
+                    .asLong();
+            return new Key(operation, packedValues, hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return hash == key.hash && operation.equals(key.operation) && Arrays.equals(values, key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) hash;
+        }
+    }
+}
@@ -1,19 +1,22 @@
 package com.github.jldelarbre;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.*;
 
 import java.util.*;
-import java.util.function.Supplier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
-import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newTreeSet;
 import static java.util.Collections.unmodifiableSortedSet;
 import static java.util.function.Predicate.not;
 import static java.util.stream.IntStream.rangeClosed;
-import static java.util.stream.Stream.generate;
 
 public class SudokuBoard {
 
@@ -21,57 +24,172 @@ public class SudokuBoard {
     private final int regionSize;
     private final int maxValue;
     private final List<Optional<Integer>> values;
+    private final ConstraintGraph constraintGraph;
+    private final ConflictTracker conflictTracker;
 
     private final Cell[][] cells;
     private final List<Row> rows;
     private final List<Column> columns;
     private final Box[][] boxes;
+    private final List<VariantRegion> variantRegions;
+    // Regions by unit of the constraint graph
+    private final Region[] units;
 
-    private final int NUM_CONSTRAINT_LEVEL = 5;
+    private static final int NUM_CONSTRAINT_LEVEL = 5;
+    // Concurrent maps: a board may be analysed in background while it is displayed. Concurrent computations of the
+    // same entry give the same result, so a lost update only costs some duplicated work.
     private final List<Map<Cell, SortedSet<Integer>>> remainingCandidateValuesUniquenessExtracted =
-            generate((Supplier<Map<Cell, SortedSet<Integer>>>) Maps::newHashMap)
-                    .limit(NUM_CONSTRAINT_LEVEL)
-                    .collect(toImmutableList());
+            newCachesPerConstraintLevel();
 
-    private final List<Map<Cell, SortedSet<Integer>>> remainingCandidateValues =
-            generate((Supplier<Map<Cell, SortedSet<Integer>>>) Maps::newHashMap)
-                    .limit(NUM_CONSTRAINT_LEVEL)
-                    .collect(toImmutableList());
+    private final List<Map<Cell, SortedSet<Integer>>> remainingCandidateValues = newCachesPerConstraintLevel();
+
+    // Per region, per value: positions in the region where the value is still a candidate (see Region#cells())
+    private final List<Map<Region, long[]>> candidatePositions = newCachesPerConstraintLevel();
 
     public static final int USED_CONSTRAINT_LEVEL = 4;
 
-    private SudokuBoard(int size, int regionSize, int maxValue, List<Optional<Integer>> values) {
-        this.size = size;
-        this.regionSize = regionSize;
-        this.maxValue = maxValue;
-        this.values = values;
+    // Shared instances of the values of the cells, boards are created on each edit
+    private static final List<Optional<Integer>> OPTIONAL_VALUES =
+            rangeClosed(0, Long.SIZE).mapToObj(value -> value == 0 ? Optional.<Integer>empty() : Optional.of(value))
+                    .collect(toImmutableList());
 
-        cells = rangeClosed(1, regionSize)
-                .mapToObj(row -> rangeClosed(1, regionSize)
-                        .mapToObj(column -> new Cell(this, row, column))
-                        .toArray(Cell[]::new)
-                )
-                .toArray(Cell[][]::new);
-        rows = rangeClosed(1, regionSize)
-                .mapToObj(row -> new Row(this, row))
-                .collect(toImmutableList());
-        columns = rangeClosed(1, regionSize)
-                .mapToObj(column -> new Column(this, column))
-                .collect(toImmutableList());
-        boxes = rangeClosed(1, size)
-                .mapToObj(row -> rangeClosed(1, size)
-                                    .mapToObj(column -> new Box(this, row, column))
-                                    .toArray(Box[]::new)
-                )
-                .toArray(Box[][]::new);
+    private SudokuBoard(ConstraintGraph constraintGraph, List<Optional<Integer>> values,
+                        ConflictTracker conflictTracker) {
+        SudokuEvents.BoardCreation event = new SudokuEvents.BoardCreation();
+        event.begin();
+        this.size = constraintGraph.size();
+        this.regionSize = constraintGraph.regionSize();
+        this.maxValue = regionSize;
+        this.values = values;
+        this.constraintGraph = constraintGraph;
+        this.conflictTracker = conflictTracker;
+
+        // Plain loops: this runs on each edit, stream pipelines would double its allocations
+        cells = new Cell[regionSize][regionSize];
+        ImmutableList.Builder<Row> rowsBuilder = ImmutableList.builderWithExpectedSize(regionSize);
+        ImmutableList.Builder<Column> columnsBuilder = ImmutableList.builderWithExpectedSize(regionSize);
+        for (int i = 1; i <= regionSize; ++i) {
+            for (int column = 1; column <= regionSize; ++column) {
+                cells[i - 1][column - 1] = new Cell(this, i, column);
+            }
+            rowsBuilder.add(new Row(this, i));
+            columnsBuilder.add(new Column(this, i));
+        }
+        rows = rowsBuilder.build();
+        columns = columnsBuilder.build();
+        boxes = new Box[size][size];
+        for (int boxRow = 1; boxRow <= size; ++boxRow) {
+            for (int boxColumn = 1; boxColumn <= size; ++boxColumn) {
+                boxes[boxRow - 1][boxColumn - 1] = new Box(this, boxRow, boxColumn);
+            }
+        }
+        units = new Region[constraintGraph.unitCount()];
+        ImmutableList.Builder<VariantRegion> variantRegionsBuilder =
+                ImmutableList.builderWithExpectedSize(units.length - 3 * regionSize);
+        for (int unit = 0; unit < units.length; ++unit) {
+            if (unit < regionSize) {
+                units[unit] = rows.get(unit);
+            } else if (unit < 2 * regionSize) {
+                units[unit] = columns.get(unit - regionSize);
+            } else if (unit < 3 * regionSize) {
+                int box = unit - 2 * regionSize;
+                units[unit] = boxes[box / size][box % size];
+            } else {
+                VariantRegion variantRegion = new VariantRegion(this, unit);
+                variantRegionsBuilder.add(variantRegion);
+                units[unit] = variantRegion;
+            }
+        }
+        variantRegions = variantRegionsBuilder.build();
+        event.size = size;
+        event.commit();
     }
 
     public static SudokuBoard create(int size) {
+        return create(ConstraintGraph.classic(size));
+    }
+
+    /**
+     * @return empty board of a variant: its units, cages included, are those of the constraint graph
+     */
+    public static SudokuBoard create(ConstraintGraph constraintGraph) {
+        return fromValues(constraintGraph, new int[constraintGraph.cellCount()]);
+    }
+
+    /**
+     * Parses the compact line format: one character per cell, row after row. Empty cells are written {@code '.'} or
+     * {@code '0'}, values 1 to 9 as digits and values from 10 as letters ({@code 'A'} = 10, {@code 'B'} = 11...).<br>
+     * The board size is deduced from the line length (81 characters for size 3, 256 for size 4...).
+     *
+     * @param line board in compact line format
+     * @return parsed board
+     */
+    public static SudokuBoard parse(String line) {
+        int[] values = parseValues(line);
+        return fromValues(sizeOf(values.length), values);
+    }
+
+    /**
+     * @return board of a variant parsed from the compact line format, see {@link #parse(String)}
+     */
+    public static SudokuBoard parse(String line, ConstraintGraph constraintGraph) {
+        int[] values = parseValues(line);
+        if (values.length != constraintGraph.cellCount()) {
+            throw new IllegalArgumentException("Line length = " + values.length + " shall be "
+                                               + constraintGraph.cellCount());
+        }
+        return fromValues(constraintGraph, values);
+    }
+
+    /**
+     * @return values of the cells of the line, row after row, 0 for an empty cell (see {@link #parse(String)})
+     */
+    static int[] parseValues(String line) {
+        String compactLine = line.strip();
+        int size = sizeOf(compactLine.length());
         int squaredSize = size * size;
-        List<Optional<Integer>> empties = generate((Supplier<Optional<Integer>>) Optional::empty)
-                .limit((long) squaredSize * squaredSize)
-                .collect(toImmutableList());
-        return new SudokuBoard(size, squaredSize, squaredSize, empties);
+        if (size < 1 || squaredSize * squaredSize != compactLine.length()) {
+            throw new IllegalArgumentException("Line length = " + compactLine.length() + " is not a valid board length");
+        }
+        int[] values = new int[compactLine.length()];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = parseValue(compactLine.charAt(i), squaredSize);
+        }
+        return values;
+    }
+
+    private static int sizeOf(int cellCount) {
+        return (int) Math.round(Math.sqrt(Math.sqrt(cellCount)));
+    }
+
+    static SudokuBoard fromValues(int size, int[] values) {
+        return fromValues(ConstraintGraph.classic(size), values);
+    }
+
+    static SudokuBoard fromValues(ConstraintGraph constraintGraph, int[] values) {
+        ImmutableList.Builder<Optional<Integer>> valuesBuilder = ImmutableList.builderWithExpectedSize(values.length);
+        for (int value : values) {
+            valuesBuilder.add(optionalValue(value));
+        }
+        return new SudokuBoard(constraintGraph, valuesBuilder.build(), ConflictTracker.of(constraintGraph, values));
+    }
+
+    private static int parseValue(char valueChar, int maxValue) {
+        char upperValueChar = Character.toUpperCase(valueChar);
+        final int value;
+        if (valueChar == '.' || valueChar == '0') {
+            value = 0;
+        } else if (valueChar >= '1' && valueChar <= '9') {
+            value = valueChar - '0';
+        } else if (upperValueChar >= 'A' && upperValueChar <= 'Z') {
+            value = upperValueChar - 'A' + 10;
+        } else {
+            throw new IllegalArgumentException("Unexpected character '" + valueChar + "' in board line");
+        }
+        if (value > maxValue) {
+            throw new IllegalArgumentException("Value = " + value + " shall be in [1 " + maxValue + "]");
+        }
+        return value;
     }
 
     public int size() {
@@ -86,6 +204,18 @@ public class SudokuBoard {
         return maxValue;
     }
 
+    public ConstraintGraph constraintGraph() {
+        return constraintGraph;
+    }
+
+    /**
+     * @return regions of the variant added to the rows, columns and boxes (diagonals, windows, cages...), in the order
+     * of the units of the constraint graph
+     */
+    public List<VariantRegion> variantRegions() {
+        return variantRegions;
+    }
+
     public Cell cell(int row, int column) {
         checkIndexes(row, column);
         return cells[row - 1][column - 1];
@@ -99,19 +229,66 @@ public class SudokuBoard {
         checkIndexes(row, column);
         checkValue(value);
         int index = listValuesIndex(row, column);
-        List<Optional<Integer>> temp = newArrayList(values);
-        temp.set(index, Optional.of(value));
-        List<Optional<Integer>> updatedList = ImmutableList.copyOf(temp);
-        return new SudokuBoard(size, regionSize, maxValue, updatedList);
+        List<Optional<Integer>> updatedList = withValue(index, value);
+        SudokuMetrics.Counter.BOARDS_CREATED.increment();
+        return new SudokuBoard(constraintGraph, updatedList, conflictTracker.withValue(index, value));
     }
 
     public SudokuBoard clear(int row, int column) {
         checkIndexes(row, column);
         int index = listValuesIndex(row, column);
-        List<Optional<Integer>> temp = newArrayList(values);
-        temp.set(index, Optional.empty());
-        List<Optional<Integer>> updatedList = ImmutableList.copyOf(temp);
-        return new SudokuBoard(size, regionSize, maxValue, updatedList);
+        List<Optional<Integer>> updatedList = withValue(index, 0);
+        SudokuMetrics.Counter.BOARDS_CREATED.increment();
+        return new SudokuBoard(constraintGraph, updatedList, conflictTracker.withValue(index, 0));
+    }
+
+    /**
+     * @return copy of the values of the board with the value at the index replaced, 0 for empty
+     */
+    private List<Optional<Integer>> withValue(int index, int value) {
+        ImmutableList.Builder<Optional<Integer>> updatedValues = ImmutableList.builderWithExpectedSize(values.size());
+        for (int i = 0; i < values.size(); ++i) {
+            updatedValues.add(i == index ? optionalValue(value) : values.get(i));
+        }
+        return updatedValues.build();
+    }
+
+    private static Optional<Integer> optionalValue(int value) {
+        return value < OPTIONAL_VALUES.size() ? OPTIONAL_VALUES.get(value) : Optional.of(value);
+    }
+
+    private static <K, V> List<Map<K, V>> newCachesPerConstraintLevel() {
+        ImmutableList.Builder<Map<K, V>> caches = ImmutableList.builderWithExpectedSize(NUM_CONSTRAINT_LEVEL);
+        for (int level = 0; level < NUM_CONSTRAINT_LEVEL; ++level) {
+            caches.add(Maps.newConcurrentMap());
+        }
+        return caches.build();
+    }
+
+    /**
+     * @return the board in the compact line format read by {@link #parse(String)}
+     */
+    public String toLine() {
+        StringBuilder line = new StringBuilder(values.size());
+        for (Optional<Integer> value : values) {
+            line.append(value.map(SudokuBoard::valueChar).orElse('.'));
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return character of the value in the compact line format
+     */
+    static char valueChar(int value) {
+        return value <= 9 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    int[] toValues() {
+        int[] valuesArray = new int[values.size()];
+        for (int i = 0; i < valuesArray.length; ++i) {
+            valuesArray[i] = values.get(i).orElse(0);
+        }
+        return valuesArray;
     }
 
     public SudokuBoard.Row row(int row) {
@@ -135,6 +312,22 @@ public class SudokuBoard {
         return boxes[row - 1][column - 1];
     }
 
+    /**
+     * Constant time: duplicate values are tracked edit after edit.
+     *
+     * @return true if a value is duplicated in a unit of the board (row, column, box or variant region)
+     */
+    public boolean hasConflicts() {
+        return conflictTracker.hasConflicts();
+    }
+
+    /**
+     * @return cells whose value is duplicated in one of their units, read without scanning the board
+     */
+    public Set<Cell> conflictingCells() {
+        return toCells(conflictTracker.conflictingCells());
+    }
+
     public Set<Cell> unfillableErroneousCells() {
         return cells().stream()
                 .filter(cell -> cell.value().isEmpty())
@@ -158,6 +351,152 @@ public class SudokuBoard {
         return (row - 1) * regionSize + (column - 1);
     }
 
+    private List<Cell> toCellList(int unit) {
+        int[] unitCells = constraintGraph.unitCells(unit);
+        ImmutableList.Builder<Cell> cellsBuilder = ImmutableList.builderWithExpectedSize(unitCells.length);
+        for (int cellIndex : unitCells) {
+            cellsBuilder.add(cells[cellIndex / regionSize][cellIndex % regionSize]);
+        }
+        return cellsBuilder.build();
+    }
+
+    private Set<Cell> toCells(int[] cellIndexes) {
+        ImmutableSet.Builder<Cell> cellsBuilder = ImmutableSet.builderWithExpectedSize(cellIndexes.length);
+        for (int cellIndex : cellIndexes) {
+            cellsBuilder.add(cells[cellIndex / regionSize][cellIndex % regionSize]);
+        }
+        return cellsBuilder.build();
+    }
+
+    /**
+     * Fills the candidate caches of every empty cell up to the constraint level, see
+     * {@link #computeCandidatesInParallel(int, Collection, ForkJoinPool, int)}.
+     *
+     * @return false when interrupted before the end of the computation
+     */
+    public boolean computeCandidatesInParallel(int constraintLevel, ForkJoinPool pool, int parallelismThreshold) {
+        return computeCandidatesInParallel(constraintLevel, cells(), pool, parallelismThreshold);
+    }
+
+    /**
+     * Fills the candidate caches of the given empty cells up to the constraint level, level after level: the cells
+     * (then their regions) of a level are computed in parallel on the pool once the previous level is complete. The
+     * sequential methods then read the caches, results are the same. Other cells are only computed at the lower levels
+     * the given cells depend on.<br>
+     * Fewer than {@code parallelismThreshold} empty cells are left to the sequential computation.
+     *
+     * @param cellsToFill cells whose candidates are needed
+     * @return false when interrupted before the end of the computation
+     */
+    public boolean computeCandidatesInParallel(int constraintLevel, Collection<Cell> cellsToFill, ForkJoinPool pool,
+                                               int parallelismThreshold) {
+        List<Cell> emptyCells = cellsToFill.stream()
+                .filter(cell -> cell.value().isEmpty())
+                .distinct()
+                .collect(toImmutableList());
+        if (emptyCells.size() < parallelismThreshold) {
+            return true;
+        }
+        BitSet cellUnits = new BitSet(units.length);
+        for (Cell cell : emptyCells) {
+            for (int unit : constraintGraph.cellUnits(listValuesIndex(cell.row, cell.column))) {
+                cellUnits.set(unit);
+            }
+        }
+        List<Region> regions = cellUnits.stream()
+                .mapToObj(unit -> units[unit])
+                .collect(toImmutableList());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try {
+            for (int level = 0; level <= constraintLevel; ++level) {
+                int currentLevel = level;
+                SudokuEvents.CandidateSweep event = new SudokuEvents.CandidateSweep();
+                event.begin();
+                forEachInParallel(pool, emptyCells, cancelled, cell ->
+                        cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(currentLevel));
+                forEachInParallel(pool, regions, cancelled, region ->
+                        candidatePositionsMasks(region, currentLevel));
+                forEachInParallel(pool, emptyCells, cancelled, cell ->
+                        cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(currentLevel));
+                event.size = size;
+                event.constraintLevel = currentLevel;
+                event.emptyCells = emptyCells.size();
+                event.parallel = true;
+                event.commit();
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns once the action has been applied to all elements: this is the barrier between constraint levels.
+     */
+    private static <T> void forEachInParallel(ForkJoinPool pool, List<T> elements, AtomicBoolean cancelled,
+                                              Consumer<T> action) throws InterruptedException {
+        try {
+            pool.submit(new ForEachAction<>(elements, cancelled, action)).get();
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Never serialized: tasks only live in the pool during the computation
+    @SuppressWarnings("serial")
+    private static final class ForEachAction<T> extends RecursiveAction {
+        private static final int MAX_ELEMENTS_PER_TASK = 16;
+
+        private final List<T> elements;
+        private final AtomicBoolean cancelled;
+        private final Consumer<T> action;
+
+        private ForEachAction(List<T> elements, AtomicBoolean cancelled, Consumer<T> action) {
+            this.elements = elements;
+            this.cancelled = cancelled;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (elements.size() > MAX_ELEMENTS_PER_TASK) {
+                int middle = elements.size() / 2;
+                invokeAll(new ForEachAction<>(elements.subList(0, middle), cancelled, action),
+                          new ForEachAction<>(elements.subList(middle, elements.size()), cancelled, action));
+                return;
+            }
+            for (T element : elements) {
+                if (cancelled.get()) {
+                    return;
+                }
+                action.accept(element);
+            }
+        }
+    }
+
+    private long[] candidatePositionsMasks(Region region, int constraintLevel) {
+        long[] cachedResult = candidatePositions.get(constraintLevel).get(region);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+        if (regionSize > Long.SIZE) {
+            throw new IllegalStateException("Region size = " + regionSize + " is too large for position masks");
+        }
+        long[] positionsMasks = new long[maxValue];
+        int position = 0;
+        for (Cell cell : region.cells()) {
+            for (int value : cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(constraintLevel)) {
+                positionsMasks[value - 1] |= 1L << position;
+            }
+            ++position;
+        }
+        candidatePositions.get(constraintLevel).put(region, positionsMasks);
+        return positionsMasks;
+    }
+
     private SortedSet<Integer> allPossibleValues() {
         return rangeClosed(1, maxValue).boxed().collect(toImmutableSortedSet(Integer::compareTo));
     }
@@ -207,8 +546,10 @@ public class SudokuBoard {
             }
             SortedSet<Integer> cachedResult = board.remainingCandidateValues.get(neighborhoodConstraintLevel).get(this);
             if (cachedResult != null) {
+                SudokuMetrics.LevelCounter.CANDIDATE_CACHE_HITS.increment(neighborhoodConstraintLevel);
                 return cachedResult;
             }
+            SudokuMetrics.LevelCounter.CANDIDATE_CACHE_MISSES.increment(neighborhoodConstraintLevel);
 
             SortedSet<Integer> remainingCandidateValues = computeRemainingCandidateValues(neighborhoodConstraintLevel);
             board.remainingCandidateValues.get(neighborhoodConstraintLevel).put(this, remainingCandidateValues);
@@ -234,7 +575,16 @@ public class SudokuBoard {
                         .map(Region::usedValues)
                         .flatMap(Collection::stream)
                         .collect(toImmutableSortedSet(Integer::compareTo));
-                constrainedValuesOfEliminationBySurroundingCells = usedValuesInNeighborhood;
+                long cageEliminatedValues = cageEliminatedValues();
+                if (cageEliminatedValues == 0) {
+                    constrainedValuesOfEliminationBySurroundingCells = usedValuesInNeighborhood;
+                } else {
+                    SortedSet<Integer> constrainedValues = newTreeSet(usedValuesInNeighborhood);
+                    for (long values = cageEliminatedValues; values != 0; values &= values - 1) {
+                        constrainedValues.add(Long.numberOfTrailingZeros(values) + 1);
+                    }
+                    constrainedValuesOfEliminationBySurroundingCells = unmodifiableSortedSet(constrainedValues);
+                }
             } else {
                 SortedSet<Integer> constrainedValuesOfElimination =
                         computeConstrainedValuesOfEliminationByNeighboringNuplet(neighborhoodConstraintLevel);
@@ -269,6 +619,7 @@ public class SudokuBoard {
                 }
                 for (SortedSet<Integer> nuplet : nupletsCount.keySet()) {
                     if (nupletsCount.get(nuplet) == nupletSize) {
+                        SudokuMetrics.Counter.NUPLET_ELIMINATIONS.increment();
                         constrainedValuesOfElimination.addAll(nuplet);
                     }
                 }
@@ -276,8 +627,49 @@ public class SudokuBoard {
             return constrainedValuesOfElimination;
         }
 
+        /**
+         * @return values the sums of the cages of the cell leave out, see {@link ConstraintGraph#cageCandidates}
+         */
+        private long cageEliminatedValues() {
+            ConstraintGraph graph = board.constraintGraph;
+            long eliminatedValues = 0;
+            for (int unit : graph.cellUnits(board.listValuesIndex(row, column))) {
+                int cageSum = graph.cageSum(unit);
+                if (cageSum == 0) {
+                    continue;
+                }
+                long placedValues = 0;
+                int placedSum = 0;
+                int emptyCells = 0;
+                for (int cageCell : graph.unitCells(unit)) {
+                    int value = board.values.get(cageCell).orElse(0);
+                    if (value == 0) {
+                        ++emptyCells;
+                    } else {
+                        placedValues |= 1L << (value - 1);
+                        placedSum += value;
+                    }
+                }
+                long availableValues = graph.allValuesMask() & ~placedValues;
+                eliminatedValues |= availableValues
+                        & ~ConstraintGraph.cageCandidates(availableValues, cageSum - placedSum, emptyCells);
+            }
+            return eliminatedValues;
+        }
+
+        /**
+         * @return regions of the cell: its row, column and box, then its variant regions
+         */
         private Collection<Region> neighborhood() {
-            return ImmutableList.of(board.row(row), board.column(column), box());
+            int[] cellUnits = board.constraintGraph.cellUnits(board.listValuesIndex(row, column));
+            if (cellUnits.length == 3) {
+                return ImmutableList.of(board.units[cellUnits[0]], board.units[cellUnits[1]], board.units[cellUnits[2]]);
+            }
+            ImmutableList.Builder<Region> neighborhood = ImmutableList.builderWithExpectedSize(cellUnits.length);
+            for (int unit : cellUnits) {
+                neighborhood.add(board.units[unit]);
+            }
+            return neighborhood.build();
         }
 
         public SortedSet<Integer> getRemainingCandidateValuesUniquePositionValueExtractedIfAny() {
@@ -290,8 +682,10 @@ public class SudokuBoard {
             }
             SortedSet<Integer> cachedResult = board.remainingCandidateValuesUniquenessExtracted.get(constraintLevel).get(this);
             if (cachedResult != null) {
+                SudokuMetrics.LevelCounter.UNIQUE_POSITION_CACHE_HITS.increment(constraintLevel);
                 return cachedResult;
             }
+            SudokuMetrics.LevelCounter.UNIQUE_POSITION_CACHE_MISSES.increment(constraintLevel);
 
             SortedSet<Integer> remainingCandidateValues =
                     getRemainingCandidateValuesAfterEliminationFromNeighboringCells(constraintLevel);
@@ -303,28 +697,17 @@ public class SudokuBoard {
             possibleValuesLoop:
             for (Integer refPossibleValueTDNPD : remainingCandidateValues) {
                 for (Region region : neighborhood()) {
-                    if (region.missingValues().contains(refPossibleValueTDNPD)) {
-                        boolean otherPossibleValueInRegion = false;
-                        for (Cell neighborCell : region.cells()) {
-                            if (neighborCell.equals(this) || neighborCell.value().isPresent()) {
-                                continue;
-                            }
-                            SortedSet<Integer> remainingCandidateValuesOfNeighborCell =
-                                    neighborCell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(constraintLevel);
-                            if (remainingCandidateValuesOfNeighborCell.contains(refPossibleValueTDNPD)) {
-                                otherPossibleValueInRegion = true;
-                                break;
-                            }
-                        }
-                        if (!otherPossibleValueInRegion) {
-                            onlyPossibleValue = Optional.of(refPossibleValueTDNPD);
-                            break possibleValuesLoop;
-                        }
+                    // The current cell is one of the positions: it is the only one when a single position is left.
+                    // Only regions holding every value force it
+                    if (region.isComplete() && Long.bitCount(region.candidatePositionsMask(refPossibleValueTDNPD, constraintLevel)) == 1) {
+                        onlyPossibleValue = Optional.of(refPossibleValueTDNPD);
+                        break possibleValuesLoop;
                     }
                 }
             }
             final SortedSet<Integer> result;
             if (onlyPossibleValue.isPresent()) {
+                SudokuMetrics.Counter.HIDDEN_SINGLES.increment();
                 result = ImmutableSortedSet.of(onlyPossibleValue.get());
             } else {
                 result = remainingCandidateValues;
@@ -333,8 +716,13 @@ public class SudokuBoard {
             return result;
         }
 
+        /**
+         * @return box of the cell, or its jigsaw region when boxes are replaced (see
+         * {@link ConstraintGraph.Builder#withJigsaw(int[])})
+         */
         public SudokuBoard.Box box() {
-            return board.boxes[((row - 1) / board.size)][((column - 1) / board.size)];
+            int box = board.constraintGraph.boxOf(board.listValuesIndex(row, column));
+            return board.boxes[box / board.size][box % board.size];
         }
 
         public int rowIndex() {
@@ -354,11 +742,11 @@ public class SudokuBoard {
         }
 
         public int boxRowIndex() {
-            return ((row - 1) / board.size) + 1;
+            return box().boxRowIndex();
         }
 
         public int boxColumnIndex() {
-            return ((column - 1) / board.size) + 1;
+            return box().boxColumnIndex();
         }
 
         @Override
@@ -371,7 +759,9 @@ public class SudokuBoard {
 
         @Override
         public int hashCode() {
-            return Objects.hash(board, row, column);
+            // Not Objects.hash: cells are the keys of the candidate caches, its varargs array would be allocated on
+            // each lookup
+            return (31 * board.hashCode() + row) * 31 + column;
         }
     }
 
@@ -379,6 +769,13 @@ public class SudokuBoard {
         SudokuBoard board();
         Collection<Cell> cells();
 
+        /**
+         * @return true when the region holds every value, false for a sum cage holding fewer cells
+         */
+        default boolean isComplete() {
+            return true;
+        }
+
         default SortedSet<Integer> usedValues() {
             return cells().stream()
                     .map(Cell::value)
@@ -418,32 +815,41 @@ public class SudokuBoard {
         }
 
         default SortedSet<Integer> getImpossibleToFillValueErrors() {
+            if (!isComplete()) {
+                return ImmutableSortedSet.of();
+            }
             SortedSet<Integer> impossibleToFillValues = newTreeSet();
-            SortedSet<Integer> missingValues = missingValues();
-            for (int missingValue : missingValues) {
-                boolean possibleLocationFound = false;
-                for (Cell cell : cells()) {
-                    if (cell.value().isEmpty()) {
-                        if (cell
-                            .getRemainingCandidateValuesAfterEliminationFromNeighboringCells(USED_CONSTRAINT_LEVEL)
-                            .contains(missingValue)) {
-                            possibleLocationFound = true;
-                            break;
-                        }
-                    }
-                }
-                if (!possibleLocationFound) {
+            for (int missingValue : missingValues()) {
+                if (candidatePositionsMask(missingValue) == 0) {
                     impossibleToFillValues.add(missingValue);
                 }
             }
             return unmodifiableSortedSet(impossibleToFillValues);
         }
+
+        default long candidatePositionsMask(int value) {
+            return candidatePositionsMask(value, USED_CONSTRAINT_LEVEL);
+        }
+
+        /**
+         * Positions are the indexes of the cells in {@link #cells()}, computed once per region and constraint level.
+         *
+         * @return bit {@code position} set when the value is a candidate of the empty cell at this position after
+         * elimination at this constraint level (see
+         * {@link Cell#getRemainingCandidateValuesAfterEliminationFromNeighboringCells(int)})
+         */
+        default long candidatePositionsMask(int value, int constraintLevel) {
+            board().checkValue(value);
+            return board().candidatePositionsMasks(this, constraintLevel)[value - 1];
+        }
     }
 
     public static class Box implements Region {
         private final SudokuBoard board;
         private final int boxRow;
         private final int boxColumn;
+        // Built on first use, a race only builds it twice
+        private List<Cell> cells;
 
         private Box(SudokuBoard board, int boxRow, int boxColumn) {
             this.board = board;
@@ -466,20 +872,25 @@ public class SudokuBoard {
 
         @Override
         public Collection<Cell> cells() {
-            ImmutableList.Builder<Cell> boxBuilder = ImmutableList.builder();
-            for (int iRow = 1 ; iRow <= board.size ; ++iRow) {
-                for (int iCol = 1 ; iCol <= board.size ; ++iCol) {
-                    boxBuilder.add(board.cells[(boxRow-1) * board.size + iRow - 1]
-                                              [(boxColumn-1) * board.size + iCol - 1]);
-                }
+            if (cells != null) {
+                return cells;
             }
-            return boxBuilder.build();
+            cells = board.toCellList(board.constraintGraph.boxUnit((boxRow - 1) * board.size + boxColumn - 1));
+            return cells;
+        }
+
+        @Override
+        public Set<Cell> getDuplicateValuesErrors() {
+            ConflictTracker tracker = board.conflictTracker;
+            return board.toCells(tracker.conflictingCells(tracker.boxUnit(boxRow, boxColumn)));
         }
     }
 
     public class Row implements Region {
         private final SudokuBoard board;
         private final int row;
+        // Built on first use, a race only builds it twice
+        private List<Cell> cells;
 
         private Row(SudokuBoard board, int row) {
             this.board = board;
@@ -497,13 +908,23 @@ public class SudokuBoard {
 
         @Override
         public Collection<Cell> cells() {
-            return Collections.unmodifiableList(Arrays.asList(board.cells[row-1]));
+            if (cells == null) {
+                cells = ImmutableList.copyOf(board.cells[row-1]);
+            }
+            return cells;
+        }
+
+        @Override
+        public Set<Cell> getDuplicateValuesErrors() {
+            return board.toCells(board.conflictTracker.conflictingCells(board.conflictTracker.rowUnit(row)));
         }
     }
 
     public class Column implements Region {
         private final SudokuBoard board;
         private final int column;
+        // Built on first use, a race only builds it twice
+        private List<Cell> cells;
 
         private Column(SudokuBoard board, int column) {
             this.board = board;
@@ -521,11 +942,70 @@ public class SudokuBoard {
 
         @Override
         public Collection<Cell> cells() {
-            ImmutableList.Builder<Cell> columnBuilder = ImmutableList.builder();
+            if (cells != null) {
+                return cells;
+            }
+            ImmutableList.Builder<Cell> columnBuilder = ImmutableList.builderWithExpectedSize(board.regionSize);
             for (int iRow = 1 ; iRow <= board.regionSize ; ++iRow) {
                 columnBuilder.add(board.cells[iRow - 1][column - 1]);
             }
-            return columnBuilder.build();
+            cells = columnBuilder.build();
+            return cells;
+        }
+
+        @Override
+        public Set<Cell> getDuplicateValuesErrors() {
+            return board.toCells(board.conflictTracker.conflictingCells(board.conflictTracker.columnUnit(column)));
+        }
+    }
+
+    /**
+     * Region of a variant added to the rows, columns and boxes: a diagonal, a window or a sum cage (see
+     * {@link ConstraintGraph.Builder}).
+     */
+    public static class VariantRegion implements Region {
+        private final SudokuBoard board;
+        private final int unit;
+        // Built on first use, a race only builds it twice
+        private List<Cell> cells;
+
+        private VariantRegion(SudokuBoard board, int unit) {
+            this.board = board;
+            this.unit = unit;
+        }
+
+        public ConstraintGraph.UnitKind kind() {
+            return board.constraintGraph.unitKind(unit);
+        }
+
+        /**
+         * @return sum of the cage, 0 when the region is not a cage
+         */
+        public int sum() {
+            return board.constraintGraph.cageSum(unit);
+        }
+
+        @Override
+        public SudokuBoard board() {
+            return board;
+        }
+
+        @Override
+        public Collection<Cell> cells() {
+            if (cells == null) {
+                cells = board.toCellList(unit);
+            }
+            return cells;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return board.constraintGraph.isComplete(unit);
+        }
+
+        @Override
+        public Set<Cell> getDuplicateValuesErrors() {
+            return board.toCells(board.conflictTracker.conflictingCells(unit));
         }
     }
 }
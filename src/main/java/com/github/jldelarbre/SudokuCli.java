@@ -0,0 +1,334 @@
+package com.github.jldelarbre;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Headless batch mode. Puzzles are read one per line (compact line format, see {@link SudokuBoard#parse(String)}) from
+ * the given files or from the standard input, processed by a pool of threads and written in input order to the
+ * standard output. Throughput and latency statistics are reported on the standard error at the end of the run.<br>
+ * This class shall not reference any JavaFX class, so that batch jobs start without loading the GUI toolkit.
+ */
+final class SudokuCli {
+
+    private static final Set<String> COMMANDS = ImmutableSet.of("solve", "rate", "validate", "generate", "serve");
+    private static final int PENDING_TASKS_PER_THREAD = 16;
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_REQUESTS_PER_PROCESSOR = 4;
+    private static final long DEFAULT_CACHE_BYTES = 64L << 20;
+    private static final long DEFAULT_MAX_NODES = 200_000;
+    /** Largest board whose values fit the line format ({@code 1}-{@code 9} then {@code A}-{@code Z}) */
+    private static final int MAX_SIZE = 5;
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    SudokuCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    static boolean isCommand(String arg) {
+        return COMMANDS.contains(arg);
+    }
+
+    /**
+     * @param args command followed by its options and input files
+     * @return process exit code
+     */
+    int run(String[] args) {
+        final Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            printUsage();
+            return 2;
+        }
+        if (options.command.equals("serve")) {
+            return serve(options);
+        }
+
+        BatchRunner batchRunner = new BatchRunner(options.threads);
+        try {
+            if (options.command.equals("generate")) {
+                for (int i = 0; i < options.count; ++i) {
+                    Random random = new Random(options.seed + i);
+                    batchRunner.submit(() -> SudokuSolver.generate(options.size, random).toLine());
+                }
+            } else {
+                Function<SudokuBoard, String> task = task(options.command);
+                readPuzzles(options.files, line -> batchRunner.submit(() -> process(task, line)));
+            }
+            batchRunner.finish();
+        } catch (IOException | UncheckedIOException e) {
+            err.println("Cannot read input: " + e.getMessage());
+            return 1;
+        } catch (IllegalStateException e) {
+            err.println(e.getMessage() + (e.getCause() == null ? "" : ": " + e.getCause()));
+            return 1;
+        } finally {
+            batchRunner.shutdown();
+        }
+        return 0;
+    }
+
+    private int serve(Options options) {
+        try (SudokuServer server = SudokuServer.start(new InetSocketAddress(options.port), options.maxRequests,
+                                                        options.cacheBytes, options.maxNodes)) {
+            err.println("Listening on port " + server.port());
+            server.awaitClose();
+        } catch (IOException e) {
+            err.println("Cannot start server: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    private static Function<SudokuBoard, String> task(String command) {
+        return switch (command) {
+            case "solve" -> board -> solve(board, Long.MAX_VALUE);
+            case "rate" -> SudokuCli::rate;
+            case "validate" -> board -> validate(board, Long.MAX_VALUE);
+            default -> throw new IllegalArgumentException("Unknown command: " + command);
+        };
+    }
+
+    static String process(Function<SudokuBoard, String> task, String line) {
+        try {
+            return task.apply(SudokuBoard.parse(line));
+        } catch (IllegalArgumentException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * @return first solution, {@code unsolvable}, or {@code unknown} when the search stopped before finding a solution
+     * (node budget exceeded or thread interrupted)
+     */
+    static String solve(SudokuBoard board, long maxNodes) {
+        SudokuSolver.Result result = SudokuSolver.countSolutions(board, 1, maxNodes);
+        return result.solution()
+                .map(SudokuBoard::toLine)
+                .orElse(result.exhaustive() ? "unsolvable" : "unknown");
+    }
+
+    private static String rate(SudokuBoard board) {
+        SudokuRater.Rating rating = SudokuRater.rate(board);
+        return "level=" + rating.hardestConstraintLevel()
+               + " deductions=" + rating.deductions()
+               + " search-nodes=" + rating.searchNodes();
+    }
+
+    /**
+     * @return {@code invalid}, {@code unsolvable}, {@code unique}, {@code multiple}, or {@code unknown} when the search
+     * stopped before deciding (node budget exceeded or thread interrupted)
+     */
+    static String validate(SudokuBoard board, long maxNodes) {
+        if (board.hasConflicts()) {
+            return "invalid";
+        }
+        SudokuSolver.Result result = SudokuSolver.countSolutions(board, 2, maxNodes);
+        if (result.solutionCount() >= 2) {
+            return "multiple";
+        }
+        if (!result.exhaustive()) {
+            return "unknown";
+        }
+        return result.isSolved() ? "unique" : "unsolvable";
+    }
+
+    private static void readPuzzles(List<String> files, Consumer<String> puzzleConsumer) throws IOException {
+        if (files.isEmpty()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            readPuzzles(reader, puzzleConsumer);
+            return;
+        }
+        for (String file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                readPuzzles(reader, puzzleConsumer);
+            }
+        }
+    }
+
+    private static void readPuzzles(BufferedReader reader, Consumer<String> puzzleConsumer) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String puzzle = line.strip();
+            if (!puzzle.isEmpty() && !puzzle.startsWith("#")) {
+                puzzleConsumer.accept(puzzle);
+            }
+        }
+    }
+
+    private void printUsage() {
+        err.println("Usage: SudokuMain <command> [options] [files...]");
+        err.println("Commands:");
+        err.println("  solve      print the first solution of each puzzle");
+        err.println("  rate       print the constraint level needed to solve each puzzle by deduction");
+        err.println("  validate   print invalid, unsolvable, unique or multiple for each puzzle");
+        err.println("  generate   print new puzzles having a unique solution");
+        err.println("  serve      answer solve, count-solutions, candidates and validate HTTP requests");
+        err.println("Options:");
+        err.println("  --threads <n>   number of worker threads (default: number of processors)");
+        err.println("  --count <n>     generate: number of puzzles (default: 1)");
+        err.println("  --size <n>      generate: board size from 1 to " + MAX_SIZE + ", 3 for 9x9 boards (default: 3)");
+        err.println("  --seed <n>      generate: random seed (default: current time)");
+        err.println("  --port <n>      serve: listening port (default: " + DEFAULT_PORT + ")");
+        err.println("  --max-requests <n>  serve: requests processed at the same time, others get status 429");
+        err.println("                      (default: " + MAX_REQUESTS_PER_PROCESSOR + " per processor)");
+        err.println("  --cache-bytes <n>   serve: bound of the result cache, 0 disables it (default: 64 MiB)");
+        err.println("  --max-nodes <n>     serve: search nodes per puzzle, beyond which the answer is unknown");
+        err.println("                      (default: " + DEFAULT_MAX_NODES + ")");
+        err.println("Puzzles are read from the standard input when no file is given.");
+    }
+
+    /**
+     * Runs tasks on a thread pool while writing their results in submission order. The number of pending tasks is
+     * bounded, so that big inputs are streamed instead of being loaded in memory.
+     */
+    private final class BatchRunner {
+        private final ExecutorService executor;
+        private final int maxPendingTasks;
+        private final Deque<Future<TimedResult>> pendingTasks = new ArrayDeque<>();
+        private final List<Long> latencies = new ArrayList<>();
+        private final long startTime = System.nanoTime();
+
+        private BatchRunner(int threads) {
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "sudoku-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            maxPendingTasks = threads * PENDING_TASKS_PER_THREAD;
+        }
+
+        private void submit(Callable<String> task) {
+            pendingTasks.add(executor.submit(() -> {
+                long taskStartTime = System.nanoTime();
+                String output = task.call();
+                return new TimedResult(output, System.nanoTime() - taskStartTime);
+            }));
+            if (pendingTasks.size() >= maxPendingTasks) {
+                writeOldestResult();
+            }
+        }
+
+        private void finish() {
+            while (!pendingTasks.isEmpty()) {
+                writeOldestResult();
+            }
+            out.flush();
+            printStatistics(System.nanoTime() - startTime);
+        }
+
+        private void shutdown() {
+            executor.shutdownNow();
+        }
+
+        private void writeOldestResult() {
+            try {
+                TimedResult result = pendingTasks.remove().get();
+                out.println(result.output);
+                latencies.add(result.latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Batch interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Batch task failed", e.getCause());
+            }
+        }
+
+        private void printStatistics(long elapsedNanos) {
+            if (latencies.isEmpty()) {
+                err.println("No puzzle processed");
+                return;
+            }
+            long[] sortedLatencies = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            double elapsedSeconds = elapsedNanos / 1e9;
+            err.printf(Locale.ROOT, "%d puzzles in %.3f s (%.1f puzzles/s)%n",
+                       sortedLatencies.length, elapsedSeconds, sortedLatencies.length / elapsedSeconds);
+            err.printf(Locale.ROOT, "latency p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                       percentile(sortedLatencies, 50), percentile(sortedLatencies, 90),
+                       percentile(sortedLatencies, 99), sortedLatencies[sortedLatencies.length - 1] / 1e6);
+        }
+
+        private double percentile(long[] sortedLatencies, int percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+            return sortedLatencies[Math.max(rank, 1) - 1] / 1e6;
+        }
+    }
+
+    private record TimedResult(String output, long latencyNanos) {
+    }
+
+    private record Options(String command, int threads, int count, int size, long seed, int port, int maxRequests,
+                           long cacheBytes, long maxNodes, List<String> files) {
+
+        private static Options parse(String[] args) {
+            if (args.length == 0 || !isCommand(args[0])) {
+                throw new IllegalArgumentException("Missing command");
+            }
+            int threads = Runtime.getRuntime().availableProcessors();
+            int count = 1;
+            int size = SudokuGame.DEFAULT_GAME_SIZE;
+            long seed = System.nanoTime();
+            int port = DEFAULT_PORT;
+            int maxRequests = MAX_REQUESTS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+            long cacheBytes = DEFAULT_CACHE_BYTES;
+            long maxNodes = DEFAULT_MAX_NODES;
+            List<String> files = new ArrayList<>();
+            for (int i = 1; i < args.length; ++i) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    files.add(arg);
+                    continue;
+                }
+                if (++i >= args.length) {
+                    throw new IllegalArgumentException("Missing value for option " + arg);
+                }
+                String value = args[i];
+                switch (arg) {
+                    case "--threads" -> threads = positiveInt(arg, value);
+                    case "--count" -> count = positiveInt(arg, value);
+                    case "--size" -> size = size(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--max-requests" -> maxRequests = positiveInt(arg, value);
+                    case "--cache-bytes" -> cacheBytes = Long.parseLong(value);
+                    case "--max-nodes" -> maxNodes = positiveInt(arg, value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return new Options(args[0], threads, count, size, seed, port, maxRequests, cacheBytes, maxNodes,
+                               files);
+        }
+
+        private static int size(String value) {
+            int size = Integer.parseInt(value);
+            if (size < 1 || size > MAX_SIZE) {
+                throw new IllegalArgumentException("Option --size shall be in [1 " + MAX_SIZE + "]");
+            }
+            return size;
+        }
+
+        private static int positiveInt(String option, String value) {
+            int intValue = Integer.parseInt(value);
+            if (intValue < 1) {
+                throw new IllegalArgumentException("Option " + option + " shall be positive");
+            }
+            return intValue;
+        }
+    }
+}
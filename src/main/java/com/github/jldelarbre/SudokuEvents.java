@@ -0,0 +1,107 @@
+package com.github.jldelarbre;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the engine and of the GUI, so that latency spikes of a recording can be matched with
+ * the phase that caused them. Each event has its duration and the size of the board.<br>
+ * The events are disabled by default; enable them in the recording settings, e.g.
+ * {@code -XX:StartFlightRecording:+com.github.jldelarbre.SolverRun#enabled=true}.
+ */
+final class SudokuEvents {
+
+    private static final String PREFIX = "com.github.jldelarbre.";
+
+    private SudokuEvents() {
+    }
+
+    @Name(PREFIX + "BoardCreation")
+    @Label("Board Creation")
+    @Description("Creation of a board with its cells and regions")
+    @Category({"Sudoku", "Board"})
+    @Enabled(false)
+    static final class BoardCreation extends Event {
+        @Label("Board Size")
+        int size;
+    }
+
+    @Name(PREFIX + "CandidateSweep")
+    @Label("Candidate Sweep")
+    @Description("Computation of the candidates of the empty cells at a constraint level")
+    @Category({"Sudoku", "Analysis"})
+    @Enabled(false)
+    static final class CandidateSweep extends Event {
+        @Label("Board Size")
+        int size;
+        @Label("Constraint Level")
+        int constraintLevel;
+        @Label("Empty Cells")
+        int emptyCells;
+        @Label("Parallel")
+        boolean parallel;
+    }
+
+    @Name(PREFIX + "DuplicateCheck")
+    @Label("Duplicate Check")
+    @Description("Search of the values used twice in a region")
+    @Category({"Sudoku", "Analysis"})
+    @Enabled(false)
+    static final class DuplicateCheck extends Event {
+        @Label("Board Size")
+        int size;
+        @Label("Duplicate Cells")
+        int duplicateCells;
+    }
+
+    @Name(PREFIX + "ImpossibleToFillCheck")
+    @Label("Impossible To Fill Check")
+    @Description("Search of the missing values of the regions left without any candidate position")
+    @Category({"Sudoku", "Analysis"})
+    @Enabled(false)
+    static final class ImpossibleToFillCheck extends Event {
+        @Label("Board Size")
+        int size;
+        @Label("Impossible To Fill Values")
+        @Description("Number of (region, value) pairs found impossible to fill")
+        int impossibleToFillValues;
+    }
+
+    @Name(PREFIX + "SolverRun")
+    @Label("Solver Run")
+    @Description("Backtracking search of the solutions of a board")
+    @Category({"Sudoku", "Solver"})
+    @Enabled(false)
+    static final class SolverRun extends Event {
+        @Label("Board Size")
+        int size;
+        @Label("Nodes")
+        long nodes;
+        @Label("Backtracks")
+        long backtracks;
+        @Label("Solution Count")
+        long solutionCount;
+        @Label("Outcome")
+        @Description("unsolvable, unique, multiple, solved (first solution found, search stopped by the limit) or incomplete"
+                     + " (search stopped by the node limit)")
+        String outcome;
+    }
+
+    @Name(PREFIX + "GuiFrame")
+    @Label("GUI Frame")
+    @Description("Rendering of the board on the canvas")
+    @Category({"Sudoku", "GUI"})
+    @Enabled(false)
+    static final class GuiFrame extends Event {
+        @Label("Board Size")
+        int size;
+        @Label("Redrawn Tiles")
+        int redrawnTiles;
+        @Label("Full Redraw")
+        boolean fullRedraw;
+    }
+}
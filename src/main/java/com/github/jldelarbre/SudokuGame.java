@@ -1,19 +1,46 @@
 package com.github.jldelarbre;
 
-import java.util.Stack;
+import java.util.*;
+import java.util.concurrent.*;
 
-public class SudokuGame {
+public class SudokuGame implements AutoCloseable {
     public static final int DEFAULT_GAME_SIZE = 3;
+    public static final int UNLIMITED_HISTORY = Integer.MAX_VALUE;
+    public static final int MAX_SPECULATED_BOARDS = 8;
 
     private SudokuBoard sudokuBoard;
-    private Stack<SudokuBoard> previousBoards = new Stack<>();
+    private final int maxHistorySize;
+    private final Deque<Move> undoMoves = new ArrayDeque<>();
+    private final Deque<Move> redoMoves = new ArrayDeque<>();
 
-    private SudokuGame(SudokuBoard sudokuBoard) {
+    private final ExecutorService speculationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sudoku-speculation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Speculation speculation;
+    private long speculationHits;
+    private long speculationMisses;
+
+    private SudokuGame(SudokuBoard sudokuBoard, int maxHistorySize) {
         this.sudokuBoard = sudokuBoard;
+        this.maxHistorySize = maxHistorySize;
+        speculate();
     }
 
     public static SudokuGame build() {
-        return new SudokuGame(SudokuBoard.create(DEFAULT_GAME_SIZE));
+        return build(UNLIMITED_HISTORY);
+    }
+
+    /**
+     * @param maxHistorySize maximum number of moves that can be undone, oldest moves are forgotten first
+     * @return new game on an empty board of default size
+     */
+    public static SudokuGame build(int maxHistorySize) {
+        if (maxHistorySize < 0) {
+            throw new IllegalArgumentException("History size = " + maxHistorySize + " shall not be negative");
+        }
+        return new SudokuGame(SudokuBoard.create(DEFAULT_GAME_SIZE), maxHistorySize);
     }
 
     public SudokuBoard getBoard() {
@@ -22,26 +49,191 @@ public class SudokuGame {
 
     SudokuBoard startNewGame(int size) {
         sudokuBoard = SudokuBoard.create(size);
-        previousBoards.clear();
+        undoMoves.clear();
+        redoMoves.clear();
+        speculate();
         return sudokuBoard;
     }
 
     SudokuBoard setCell(int value, int row, int column) {
-        previousBoards.push(sudokuBoard);
-        sudokuBoard = sudokuBoard.set(value, row, column);
-        return sudokuBoard;
+        return play(Move.of(sudokuBoard, row, column, value));
     }
 
     SudokuBoard clearCell(int row, int column) {
-        previousBoards.push(sudokuBoard);
-        sudokuBoard = sudokuBoard.clear(row, column);
-        return sudokuBoard;
+        return play(Move.of(sudokuBoard, row, column, Move.EMPTY));
     }
 
     SudokuBoard undo() {
-        if (!previousBoards.empty()) {
-            sudokuBoard = previousBoards.pop();
+        if (!undoMoves.isEmpty()) {
+            Move move = undoMoves.removeLast();
+            sudokuBoard = move.revert(sudokuBoard);
+            redoMoves.addLast(move);
+            speculate();
+        }
+        return sudokuBoard;
+    }
+
+    SudokuBoard redo() {
+        if (!redoMoves.isEmpty()) {
+            Move move = redoMoves.removeLast();
+            sudokuBoard = playSpeculatedOrApply(move);
+            undoMoves.addLast(move);
+            speculate();
         }
         return sudokuBoard;
     }
+
+    int undoableMoves() {
+        return undoMoves.size();
+    }
+
+    int redoableMoves() {
+        return redoMoves.size();
+    }
+
+    long speculationHits() {
+        return speculationHits;
+    }
+
+    long speculationMisses() {
+        return speculationMisses;
+    }
+
+    /**
+     * Waits until the background analysis of the current board and of its likely next boards is over.
+     */
+    void awaitSpeculation() throws InterruptedException {
+        try {
+            speculation.task.get();
+        } catch (CancellationException | ExecutionException e) {
+            // Nothing more to wait for
+        }
+    }
+
+    void shutdown() {
+        speculationExecutor.shutdownNow();
+    }
+
+    /**
+     * Stops the background speculation and waits until it is over, so that no board is built or analysed afterwards.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        shutdown();
+        speculationExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private SudokuBoard play(Move move) {
+        sudokuBoard = playSpeculatedOrApply(move);
+        redoMoves.clear();
+        if (maxHistorySize > 0) {
+            if (undoMoves.size() == maxHistorySize) {
+                undoMoves.removeFirst();
+            }
+            undoMoves.addLast(move);
+        }
+        speculate();
+        return sudokuBoard;
+    }
+
+    private SudokuBoard playSpeculatedOrApply(Move move) {
+        SudokuBoard speculatedBoard = speculation.nextBoards.get(move);
+        if (speculatedBoard != null) {
+            ++speculationHits;
+            return speculatedBoard;
+        }
+        SudokuBoard nextBoard = move.apply(sudokuBoard);
+        ++speculationMisses;
+        return nextBoard;
+    }
+
+    private void speculate() {
+        if (speculation != null) {
+            speculation.task.cancel(true);
+        }
+        speculation = new Speculation(sudokuBoard);
+        speculation.task = speculationExecutor.submit(speculation::run);
+    }
+
+    /**
+     * Background analysis of a board while the user is thinking: the board analysis used for display is computed,
+     * then the boards resulting from the most likely next moves (cells having one or two candidate values left) are
+     * built and analysed as well. When the user plays one of those moves, its board is taken with warm caches.<br>
+     * Speculation is cancelled as soon as the board changes.
+     */
+    private static final class Speculation {
+        private final SudokuBoard board;
+        private final Map<Move, SudokuBoard> nextBoards = new ConcurrentHashMap<>();
+        private Future<?> task;
+
+        private Speculation(SudokuBoard board) {
+            this.board = board;
+        }
+
+        private void run() {
+            Optional<BoardAnalysis> analysis = BoardAnalysis.compute(board, BoardAnalysis.Scope.wholeBoard(board));
+            if (analysis.isEmpty()) {
+                return;
+            }
+            for (Move move : likelyMoves(analysis.get())) {
+                SudokuBoard nextBoard = move.apply(board);
+                if (BoardAnalysis.compute(nextBoard, BoardAnalysis.Scope.wholeBoard(nextBoard)).isEmpty()) {
+                    return;
+                }
+                nextBoards.put(move, nextBoard);
+            }
+        }
+
+        private List<Move> likelyMoves(BoardAnalysis analysis) {
+            List<Move> likelyMoves = new ArrayList<>();
+            for (int candidateCount = 1; candidateCount <= 2; ++candidateCount) {
+                for (int row = 1; row <= analysis.regionSize(); ++row) {
+                    for (int column = 1; column <= analysis.regionSize(); ++column) {
+                        long candidateValues = analysis.candidateValuesMask(row, column);
+                        if (analysis.value(row, column) != Move.EMPTY || Long.bitCount(candidateValues) != candidateCount) {
+                            continue;
+                        }
+                        for (int candidateValue : BoardAnalysis.toValues(candidateValues)) {
+                            if (likelyMoves.size() == MAX_SPECULATED_BOARDS) {
+                                return likelyMoves;
+                            }
+                            likelyMoves.add(Move.of(board, row, column, candidateValue));
+                        }
+                    }
+                }
+            }
+            return likelyMoves;
+        }
+    }
+
+    /**
+     * Delta between two consecutive boards: only the modified cell is kept in history, previous boards (and their
+     * candidate caches) are rebuilt on demand when undoing.
+     *
+     * @param cellOrdinal index of the cell, row after row, starting at 0
+     * @param previousValue value before the move, {@link #EMPTY} for an empty cell
+     * @param newValue value after the move, {@link #EMPTY} for an empty cell
+     */
+    private record Move(int cellOrdinal, int previousValue, int newValue) {
+        private static final int EMPTY = 0;
+
+        private static Move of(SudokuBoard board, int row, int column, int newValue) {
+            int previousValue = board.cell(row, column).value().orElse(EMPTY);
+            return new Move((row - 1) * board.regionSize() + (column - 1), previousValue, newValue);
+        }
+
+        private SudokuBoard apply(SudokuBoard board) {
+            return withValue(board, newValue);
+        }
+
+        private SudokuBoard revert(SudokuBoard board) {
+            return withValue(board, previousValue);
+        }
+
+        private SudokuBoard withValue(SudokuBoard board, int value) {
+            int row = cellOrdinal / board.regionSize() + 1;
+            int column = cellOrdinal % board.regionSize() + 1;
+            return value == EMPTY ? board.clear(row, column) : board.set(value, row, column);
+        }
+    }
 }
@@ -1,7 +1,8 @@
 package com.github.jldelarbre;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableMap;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -10,22 +11,30 @@ import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 
-import java.math.BigInteger;
-import java.util.List;
-import java.util.Set;
-import java.util.SortedSet;
-
-import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.Math.ceil;
 import static java.lang.Math.floor;
 
 public final class SudokuGui extends Application {
@@ -39,25 +48,84 @@ public final class SudokuGui extends Application {
     public static final int COL_OFFSET_HINT = 8;
     public static final int ROW_SPACE_HINT = 16;
     public static final int COL_SPACE_HINT = 15;
+    public static final int TILE_INSET = 2;
+    public static final int CANVAS_WIDTH = 900;
+    public static final int CANVAS_HEIGHT = 650;
+    public static final double MIN_ZOOM = 0.05;
+    public static final double MAX_ZOOM = 4;
+    public static final double ZOOM_STEP = 1.25;
+    /**
+     * Level of detail: below these sizes on screen, hint digits, then values, are not legible anymore. They are
+     * neither computed nor drawn.
+     */
+    public static final double MIN_CELL_PIXELS_FOR_HINTS = 30;
+    public static final double MIN_CELL_PIXELS_FOR_VALUES = 10;
+    public static final int ESTIMATION_PROBES = 200;
 
     private static SudokuGame sudokuGame;
 
     private static Font valuesFont = Font.font(48);
 //    private static Font startingValuesFont = Font.font(valuesFont.getFamily(), FontWeight.BOLD, 48);
     private static Font hintsFont = Font.font(14);
+    private static Font diagnosticsFont = Font.font("Monospaced", 12);
 
     private static GraphicsContext gc;
+    private GraphicsContext diagnosticsGc;
     private TextField valueToSetField;
     private TextField rowToSetField;
     private TextField colToSetField;
-
-    private List<Integer> numPossibilities = Lists.newArrayList();
+    private TextField sizeField;
+    private CheckBox incrementalRenderingBox;
+    private CheckBox diagnosticsBox;
+    private Label hintLabel;
+    private Label estimateLabel;
+
+    private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sudoku-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sudoku-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService estimationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sudoku-estimation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Random estimationRandom = new Random();
+    private Future<?> pendingAnalysis = CompletableFuture.completedFuture(null);
+    private Future<?> pendingEstimation = CompletableFuture.completedFuture(null);
+    private Future<?> pendingHint = CompletableFuture.completedFuture(null);
+    private SudokuBoard hintedBoard;
+    private Optional<SudokuHints.Hint> boardHint = Optional.empty();
+    private long analysisGeneration;
+    private BoardDisplay displayedBoard;
+    private GlyphAtlas glyphAtlas;
+    private Viewport viewport = Viewport.DEFAULT;
+
+    private long lastFrameNanos;
+    private long averageFrameNanos;
+    private int lastFrameRedrawnTiles;
+    private BoardAnalysis lastAnalysis;
+    private long moveAllocatedBytes = -1;
+    private long analysisAllocatedBytes = -1;
 
     public static synchronized void start(SudokuGame sudokuGame, String[] args) {
         SudokuGui.sudokuGame = sudokuGame;
         launch(args);
     }
 
+    @Override
+    public void stop() throws Exception {
+        analysisExecutor.shutdownNow();
+        hintExecutor.shutdownNow();
+        estimationExecutor.shutdownNow();
+        sudokuGame.shutdown();
+    }
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         Scene scene = buildScene();
@@ -76,209 +144,301 @@ public final class SudokuGui extends Application {
         drawBoard(root);
         setBoardActions();
 
-        Scene scene = new Scene(root, 900, 674);
+        Scene scene = new Scene(root, CANVAS_WIDTH, CANVAS_HEIGHT + 24);
         return scene;
     }
 
     private void drawBoard(BorderPane root) {
-        SudokuBoard board = sudokuGame.getBoard();
-        Canvas canvas = new Canvas(900, 650);
+        Canvas canvas = new Canvas(CANVAS_WIDTH, CANVAS_HEIGHT);
         gc = canvas.getGraphicsContext2D();
-        root.getChildren().add(canvas);
+        Canvas diagnosticsCanvas = new Canvas(CANVAS_WIDTH, CANVAS_HEIGHT);
+        diagnosticsCanvas.setMouseTransparent(true);
+        diagnosticsCanvas.setVisible(diagnosticsBox.isSelected());
+        diagnosticsGc = diagnosticsCanvas.getGraphicsContext2D();
+        root.getChildren().add(new StackPane(canvas, diagnosticsCanvas));
 
         drawBoard(sudokuGame.getBoard());
+        estimateSolutions(sudokuGame.getBoard());
     }
 
+    /**
+     * Draws the cheap part of the board (values, level 0 hints, missing values and duplicates) right away, then
+     * computes the remaining analysis on a worker thread. The analysis result is drawn back on the JavaFX application
+     * thread, unless a newer board has been drawn in the meantime.<br>
+     * Only the cells and hint panels visible in the viewport are computed and drawn.
+     */
     private void drawBoard(SudokuBoard board) {
-        drawEmptyBoard(board.size(), CELL_SIZE * board.regionSize());
-        drawBoardValues(board);
-        drawMissingValues(board);
-        drawDuplicateValueErrors(board);
-        drawImpossibleToFillValueErrors(board);
-        drawUniquePossibleValuesHighlighting(board);
-    }
-
-    private void drawUniquePossibleValuesHighlighting(SudokuBoard board) {
-        gc.setStroke(Color.GREEN);
-        gc.setFill(Color.GREEN);
-        for (int iRow = 1; iRow <= board.regionSize() ; ++iRow) {
-            int rowBase = BOARD_UPPER_MARGIN + (iRow-1) * CELL_SIZE;
-            int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + (iRow-1) * CELL_SIZE;
-            for (int iCol = 1; iCol <= board.regionSize() ; ++iCol) {
-                int colBase = BOARD_LEFT_MARGIN + (iCol-1) * CELL_SIZE;
-                int colHint = BOARD_LEFT_MARGIN + COL_OFFSET_HINT + (iCol-1) * CELL_SIZE;
-                SudokuBoard.Cell cell = board.cell(iRow, iCol);
-                SortedSet<Integer> possibleValuesNotTakingPlaceOfOnePossiblePositionValue =
-                        cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny();
-                SortedSet<Integer> candidateValues =
-                    cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(USED_CONSTRAINT_LEVEL);
-                if (possibleValuesNotTakingPlaceOfOnePossiblePositionValue.size() == 1) {
-                    gc.strokeRect(colBase, rowBase, CELL_SIZE, CELL_SIZE);
-
-                    Integer possibleValue = possibleValuesNotTakingPlaceOfOnePossiblePositionValue.iterator().next();
-                    int subRowInd = (possibleValue - 1) / board.size();
-                    int subColInd = (possibleValue - 1) % board.size();
-                    gc.fillText(possibleValue.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
+        if (board != hintedBoard) {
+            highlightNextHint(board);
+        }
+        pendingAnalysis.cancel(true);
+        long generation = ++analysisGeneration;
+        viewport = viewport.clampedTo(board);
+        Viewport boardViewport = viewport;
+        drawBoard(board, boardViewport, BoardAnalysis.basic(board));
+        BoardAnalysis.Scope analysisScope = boardViewport.analysisScope(board);
+        pendingAnalysis = analysisExecutor.submit(() -> {
+            long allocatedBytesBefore = SudokuMetrics.currentThreadAllocatedBytes();
+            Optional<BoardAnalysis> analysis = BoardAnalysis.compute(board, analysisScope);
+            long allocatedBytes = allocatedBytesBefore < 0
+                                  ? -1 : SudokuMetrics.currentThreadAllocatedBytes() - allocatedBytesBefore;
+            analysis.ifPresent(boardAnalysis -> Platform.runLater(() -> {
+                if (generation == analysisGeneration) {
+                    analysisAllocatedBytes = allocatedBytes;
+                    drawBoard(board, boardViewport, boardAnalysis);
                 }
-                if (possibleValuesNotTakingPlaceOfOnePossiblePositionValue.size() != candidateValues.size()) {
-                    for (Integer nextToPairValue : candidateValues) {
-                        int subRowInd = (nextToPairValue - 1) / board.size();
-                        int subColInd = (nextToPairValue - 1) % board.size();
-                        gc.setFill(Color.PURPLE);
-                        gc.fillText(nextToPairValue.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-                        gc.setFill(Color.GREEN);
-                    }
+            }));
+        });
+    }
+
+    /**
+     * The next step is highlighted in green: only the cheapest deduction is looked for (see
+     * {@link SudokuHints#nextHint}), on a worker thread, then its cell is redrawn.
+     */
+    private void highlightNextHint(SudokuBoard board) {
+        pendingHint.cancel(true);
+        hintedBoard = board;
+        boardHint = Optional.empty();
+        pendingHint = hintExecutor.submit(() -> {
+            Optional<SudokuHints.Hint> hint = SudokuHints.nextHint(board);
+            Platform.runLater(() -> {
+                if (board == hintedBoard && hint.isPresent()) {
+                    boardHint = hint;
+                    drawBoard(board, viewport, lastAnalysis);
                 }
-            }
+            });
+        });
+    }
+
+    private void setViewport(Viewport newViewport) {
+        SudokuBoard board = sudokuGame.getBoard();
+        if (!newViewport.clampedTo(board).equals(viewport)) {
+            viewport = newViewport;
+            drawBoard(board);
         }
-        gc.setStroke(Color.BLACK);
-        gc.setFill(Color.BLACK);
     }
 
-    private void drawImpossibleToFillValueErrors(SudokuBoard board) {
-        gc.setFill(Color.RED);
-        gc.setStroke(Color.RED);
-        drawImpossibleToFillValueInRowErrors(board);
-        drawImpossibleToFillValueInColumnErrors(board);
-        drawImpossibleToFillValueInBoxErrors(board);
-        drawImpossibleToFillCellErrors(board);
+    /**
+     * Draws from the analysis only, no analysis work is done here.
+     */
+    private void drawBoard(SudokuBoard board, Viewport viewport, BoardAnalysis analysis) {
+        SudokuEvents.GuiFrame frameEvent = new SudokuEvents.GuiFrame();
+        frameEvent.begin();
+        long frameStart = System.nanoTime();
+        int redrawnTiles = 0;
+        BoardDisplay boardDisplay = BoardDisplay.of(board, viewport, analysis,
+                                                    board == hintedBoard ? boardHint : Optional.empty());
+        if (glyphAtlas == null || !glyphAtlas.isRenderedFor(board.maxValue(), viewport.zoom())) {
+            glyphAtlas = GlyphAtlas.render(board.maxValue(), viewport.zoom(), valuesFont, hintsFont);
+        }
+        boolean fullRedraw = !incrementalRenderingBox.isSelected()
+                             || displayedBoard == null
+                             || displayedBoard.size() != boardDisplay.size()
+                             || !displayedBoard.viewport().equals(viewport);
+        if (fullRedraw) {
+            gc.setTransform(1, 0, 0, 1, 0, 0);
+            gc.setFill(Color.WHITE);
+            gc.fillRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+            gc.setFill(Color.BLACK);
+        }
+        viewport.apply(gc);
+        if (fullRedraw) {
+            drawEmptyBoard(board.size(), CELL_SIZE * board.regionSize());
+            drawEmptyBoxHints(board.size(), CELL_SIZE * board.regionSize());
+        }
+        for (Map.Entry<Integer, CellDisplay> cellEntry : boardDisplay.cells().entrySet()) {
+            int cellIndex = cellEntry.getKey();
+            CellDisplay cellDisplay = cellEntry.getValue();
+            if (fullRedraw || !cellDisplay.equals(displayedBoard.cells().get(cellIndex))) {
+                ++redrawnTiles;
+                int iRow = cellIndex / board.regionSize() + 1;
+                int iCol = cellIndex % board.regionSize() + 1;
+                drawCell(board.size(), cellLeft(iCol), cellTop(iRow), cellDisplay, viewport);
+            }
+        }
+        for (Map.Entry<Integer, RegionDisplay> rowEntry : boardDisplay.rows().entrySet()) {
+            int iRow = rowEntry.getKey();
+            if (fullRedraw || !rowEntry.getValue().equals(displayedBoard.rows().get(iRow))) {
+                ++redrawnTiles;
+                drawRegionHints(board.size(), rowHintLeft(board), cellTop(iRow), rowEntry.getValue(), viewport);
+            }
+        }
+        for (Map.Entry<Integer, RegionDisplay> columnEntry : boardDisplay.columns().entrySet()) {
+            int iCol = columnEntry.getKey();
+            if (fullRedraw || !columnEntry.getValue().equals(displayedBoard.columns().get(iCol))) {
+                ++redrawnTiles;
+                drawRegionHints(board.size(), cellLeft(iCol), columnHintTop(board), columnEntry.getValue(), viewport);
+            }
+        }
+        for (Map.Entry<Integer, RegionDisplay> boxEntry : boardDisplay.boxes().entrySet()) {
+            int boxIndex = boxEntry.getKey();
+            if (fullRedraw || !boxEntry.getValue().equals(displayedBoard.boxes().get(boxIndex))) {
+                ++redrawnTiles;
+                int iBoxRow = boxIndex / board.size() + 1;
+                int iBoxCol = boxIndex % board.size() + 1;
+                drawRegionHints(board.size(), boxHintLeft(board) + (iBoxCol-1) * CELL_SIZE,
+                                cellTop(iBoxRow), boxEntry.getValue(), viewport);
+            }
+        }
         gc.setFill(Color.BLACK);
         gc.setStroke(Color.BLACK);
+        displayedBoard = boardDisplay;
+
+        lastFrameNanos = System.nanoTime() - frameStart;
+        averageFrameNanos = averageFrameNanos == 0 ? lastFrameNanos : (7 * averageFrameNanos + lastFrameNanos) / 8;
+        lastFrameRedrawnTiles = redrawnTiles;
+        lastAnalysis = analysis;
+        frameEvent.size = board.size();
+        frameEvent.redrawnTiles = redrawnTiles;
+        frameEvent.fullRedraw = fullRedraw;
+        frameEvent.commit();
+        drawDiagnostics();
     }
 
-    private void drawImpossibleToFillCellErrors(SudokuBoard board) {
-        Set<SudokuBoard.Cell> unfillableErroneousCells = board.unfillableErroneousCells();
-        for (SudokuBoard.Cell unfillableErroneousCell : unfillableErroneousCells) {
-            int row = unfillableErroneousCell.rowIndex();
-            int column = unfillableErroneousCell.columnIndex();
-            int rowBase = BOARD_UPPER_MARGIN + (row-1) * CELL_SIZE;
-            int colBase = BOARD_LEFT_MARGIN + (column-1) * CELL_SIZE;
-            gc.strokeRect(colBase, rowBase, CELL_SIZE, CELL_SIZE);
-        }
-    }
-
-    private void drawImpossibleToFillValueInBoxErrors(SudokuBoard board) {
-        int hintLeftMargin = BOARD_LEFT_MARGIN + CELL_SIZE * board.regionSize() + 2*CELL_SIZE;
-        for (int iBoxRow = 1; iBoxRow <= board.size() ; ++iBoxRow) {
-            int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + (iBoxRow-1) * CELL_SIZE;
-            for (int iBoxCol = 1; iBoxCol <= board.size() ; ++iBoxCol) {
-                int colHint = hintLeftMargin + COL_OFFSET_HINT + (iBoxCol-1) * CELL_SIZE;
-                SortedSet<Integer> impossibleToFillValueErrors = board.box(iBoxRow, iBoxCol).getImpossibleToFillValueErrors();
-                for (Integer impossibleValueToFill : impossibleToFillValueErrors) {
-                    int subRowInd = (impossibleValueToFill - 1) / board.size();
-                    int subColInd = (impossibleValueToFill - 1) % board.size();
-                    gc.fillText(impossibleValueToFill.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-                    gc.strokeRect(colHint - COL_OFFSET_HINT, rowHint - ROW_OFFSET_HINT, CELL_SIZE, CELL_SIZE);
-                }
-            }
+    /**
+     * Overlay of the last frame render time, of the last analysis time split by phase, of the hit rates of the
+     * candidate caches and of the memory allocated by the last move.
+     */
+    private void drawDiagnostics() {
+        if (!diagnosticsBox.isSelected()) {
+            return;
         }
+        Canvas diagnosticsCanvas = diagnosticsGc.getCanvas();
+        diagnosticsGc.clearRect(0, 0, diagnosticsCanvas.getWidth(), diagnosticsCanvas.getHeight());
+        diagnosticsGc.setFill(Color.rgb(255, 255, 255, 0.85));
+        diagnosticsGc.fillRect(0, 0, 430, 94);
+        diagnosticsGc.setFill(Color.BLUE);
+        diagnosticsGc.setFont(diagnosticsFont);
+        diagnosticsGc.fillText(String.format(Locale.ROOT, "frame %.3f ms (avg %.3f ms), %d tiles redrawn",
+                                             lastFrameNanos / 1e6, averageFrameNanos / 1e6, lastFrameRedrawnTiles),
+                               8, 16);
+        diagnosticsGc.fillText(String.format(Locale.ROOT, "analysis values %.3f ms, duplicates %.3f ms, hints %.3f ms",
+                                             phaseMillis(BoardAnalysis.Phase.VALUES),
+                                             phaseMillis(BoardAnalysis.Phase.DUPLICATES),
+                                             phaseMillis(BoardAnalysis.Phase.HINTS)),
+                               8, 32);
+        diagnosticsGc.fillText(String.format(Locale.ROOT, "         unique values %.3f ms, impossible-to-fill %.3f ms",
+                                             phaseMillis(BoardAnalysis.Phase.UNIQUE_VALUES),
+                                             phaseMillis(BoardAnalysis.Phase.IMPOSSIBLE_TO_FILL)),
+                               8, 48);
+        diagnosticsGc.fillText(String.format(Locale.ROOT, "cache hit rate candidates %.1f %%, unique positions %.1f %%",
+                                             100 * SudokuMetrics.hitRate(SudokuMetrics.LevelCounter.CANDIDATE_CACHE_HITS,
+                                                                         SudokuMetrics.LevelCounter.CANDIDATE_CACHE_MISSES),
+                                             100 * SudokuMetrics.hitRate(SudokuMetrics.LevelCounter.UNIQUE_POSITION_CACHE_HITS,
+                                                                         SudokuMetrics.LevelCounter.UNIQUE_POSITION_CACHE_MISSES)),
+                               8, 64);
+        diagnosticsGc.fillText("allocation per move UI " + formatBytes(moveAllocatedBytes)
+                               + ", analysis " + formatBytes(analysisAllocatedBytes),
+                               8, 80);
     }
 
-    private void drawImpossibleToFillValueInColumnErrors(SudokuBoard board) {
-        int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + board.regionSize() * CELL_SIZE;
-        for (int iCol = 1; iCol <= board.regionSize() ; ++iCol) {
-            int colHint = BOARD_LEFT_MARGIN + COL_OFFSET_HINT + (iCol-1) * CELL_SIZE;
-            SortedSet<Integer> impossibleToFillValueErrors = board.column(iCol).getImpossibleToFillValueErrors();
-            for (Integer impossibleValueToFill : impossibleToFillValueErrors) {
-                int subRowInd = (impossibleValueToFill - 1) / board.size();
-                int subColInd = (impossibleValueToFill - 1) % board.size();
-                gc.fillText(impossibleValueToFill.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-                gc.strokeRect(colHint - COL_OFFSET_HINT, rowHint - ROW_OFFSET_HINT, CELL_SIZE, CELL_SIZE);
-            }
-        }
+    private double phaseMillis(BoardAnalysis.Phase phase) {
+        return lastAnalysis == null ? 0 : lastAnalysis.phaseNanos(phase) / 1e6;
     }
 
-    private void drawImpossibleToFillValueInRowErrors(SudokuBoard board) {
-        int colHint = BOARD_LEFT_MARGIN + COL_OFFSET_HINT + board.regionSize() * CELL_SIZE;
-        for (int iRow = 1; iRow <= board.regionSize() ; ++iRow) {
-            int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + (iRow-1) * CELL_SIZE;
-            SortedSet<Integer> impossibleToFillValueErrors = board.row(iRow).getImpossibleToFillValueErrors();
-            for (Integer impossibleValueToFill : impossibleToFillValueErrors) {
-                int subRowInd = (impossibleValueToFill - 1) / board.size();
-                int subColInd = (impossibleValueToFill - 1) % board.size();
-                gc.fillText(impossibleValueToFill.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-                gc.strokeRect(colHint - COL_OFFSET_HINT, rowHint - ROW_OFFSET_HINT, CELL_SIZE, CELL_SIZE);
-            }
+    private static String formatBytes(long bytes) {
+        if (bytes < 0) {
+            return "n/a";
         }
+        return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
     }
 
-    private void drawDuplicateValueErrors(SudokuBoard board) {
-        gc.setStroke(Color.RED);
-        drawDuplicateValueInRowErrors(board);
-        drawDuplicateValueInColumnErrors(board);
-        drawDuplicateValueInBoxErrors(board);
-        gc.setStroke(Color.BLACK);
+    private void drawMove(SudokuBoard board, long allocatedBytesBeforeMove) {
+        hintLabel.setText("");
+        drawBoard(board);
+        estimateSolutions(board);
+        moveAllocatedBytes = allocatedBytesBeforeMove < 0
+                             ? -1 : SudokuMetrics.currentThreadAllocatedBytes() - allocatedBytesBeforeMove;
+        drawDiagnostics();
     }
 
-    private void drawDuplicateValueInBoxErrors(SudokuBoard board) {
-        for (int iBoxRow = 1; iBoxRow <= board.size() ; ++iBoxRow) {
-            for (int iBoxCol = 1; iBoxCol <= board.size() ; ++iBoxCol) {
-                SudokuBoard.Box box = board.box(iBoxRow, iBoxCol);
-                Set<SudokuBoard.Cell> erroneousCells = box.getDuplicateValuesErrors();
-                for (SudokuBoard.Cell erroneousCell : erroneousCells) {
-                    int iRow = erroneousCell.rowIndex();
-                    int iCol = erroneousCell.columnIndex();
-                    int rowBase = BOARD_UPPER_MARGIN + (iRow-1) * CELL_SIZE;
-                    int colBase = BOARD_LEFT_MARGIN + (iCol-1) * CELL_SIZE;
-                    gc.strokeLine(colBase, rowBase, colBase + CELL_SIZE, rowBase + CELL_SIZE);
-                    gc.strokeLine(colBase, rowBase + CELL_SIZE, colBase + CELL_SIZE, rowBase);
-                }
+    /**
+     * Everything drawn for a cell stays inside its tile, inner to the grid lines, so that a tile can be redrawn
+     * without touching its neighbors.
+     */
+    private void drawCell(int boardSize, int colBase, int rowBase, CellDisplay cellDisplay, Viewport viewport) {
+        beginTile(colBase, rowBase);
+        int colHint = colBase + COL_OFFSET_HINT;
+        int rowHint = rowBase + ROW_OFFSET_HINT;
+        if (cellDisplay.value() != CellDisplay.EMPTY) {
+            if (viewport.showsValues()) {
+                glyphAtlas.draw(gc, GlyphAtlas.Style.VALUE, cellDisplay.value(),
+                                colBase + COL_OFFSET_VAL, rowBase + ROW_OFFSET_VAL);
+            } else {
+                gc.setFill(Color.DARKGRAY);
+                gc.fillRect(colBase + TILE_INSET, rowBase + TILE_INSET,
+                            CELL_SIZE - 2*TILE_INSET, CELL_SIZE - 2*TILE_INSET);
             }
+        } else {
+            drawHintValues(boardSize, colHint, rowHint, cellDisplay.possibleValues(), GlyphAtlas.Style.HINT);
+        }
+        if (cellDisplay.duplicateValue()) {
+            gc.setStroke(Color.RED);
+            gc.strokeLine(colBase + TILE_INSET, rowBase + TILE_INSET,
+                          colBase + CELL_SIZE - TILE_INSET, rowBase + CELL_SIZE - TILE_INSET);
+            gc.strokeLine(colBase + TILE_INSET, rowBase + CELL_SIZE - TILE_INSET,
+                          colBase + CELL_SIZE - TILE_INSET, rowBase + TILE_INSET);
+        }
+        if (cellDisplay.unfillable()) {
+            gc.setStroke(Color.RED);
+            strokeTileBorder(colBase, rowBase);
+        }
+        long hintValues = cellDisplay.hintValue() == CellDisplay.EMPTY ? 0 : 1L << (cellDisplay.hintValue() - 1);
+        long candidateValues = cellDisplay.candidateValues();
+        if (hintValues != 0) {
+            gc.setStroke(Color.GREEN);
+            strokeTileBorder(colBase, rowBase);
+            drawHintValues(boardSize, colHint, rowHint, hintValues, GlyphAtlas.Style.UNIQUE_POSITION_VALUE);
+        }
+        if (candidateValues != cellDisplay.possibleValues() && candidateValues != hintValues) {
+            drawHintValues(boardSize, colHint, rowHint, candidateValues, GlyphAtlas.Style.CANDIDATE);
         }
+        endTile();
     }
 
-    private void drawDuplicateValueInColumnErrors(SudokuBoard board) {
-        for (int iCol = 1; iCol <= board.regionSize() ; ++iCol) {
-            SudokuBoard.Column col = board.column(iCol);
-            Set<SudokuBoard.Cell> erroneousCells = col.getDuplicateValuesErrors();
-            int colBase = BOARD_LEFT_MARGIN + (iCol-1) * CELL_SIZE;
-            for (SudokuBoard.Cell erroneousCell : erroneousCells) {
-                int iRow = erroneousCell.rowIndex();
-                int rowBase = BOARD_UPPER_MARGIN + (iRow-1) * CELL_SIZE;
-                gc.strokeLine(colBase, rowBase, colBase + CELL_SIZE, rowBase + CELL_SIZE);
-                gc.strokeLine(colBase, rowBase + CELL_SIZE, colBase + CELL_SIZE, rowBase);
+    private void drawRegionHints(int boardSize, int colBase, int rowBase, RegionDisplay regionDisplay,
+                                 Viewport viewport) {
+        beginTile(colBase, rowBase);
+        int colHint = colBase + COL_OFFSET_HINT;
+        int rowHint = rowBase + ROW_OFFSET_HINT;
+        drawHintValues(boardSize, colHint, rowHint, regionDisplay.missingValues(), GlyphAtlas.Style.HINT);
+        if (regionDisplay.impossibleToFillValues() != 0) {
+            gc.setStroke(Color.RED);
+            if (viewport.showsHints()) {
+                drawHintValues(boardSize, colHint, rowHint, regionDisplay.impossibleToFillValues(),
+                               GlyphAtlas.Style.ERROR);
             }
+            strokeTileBorder(colBase, rowBase);
         }
+        endTile();
     }
 
-    private void drawDuplicateValueInRowErrors(SudokuBoard board) {
-        for (int iRow = 1; iRow <= board.regionSize() ; ++iRow) {
-            SudokuBoard.Row row = board.row(iRow);
-            Set<SudokuBoard.Cell> erroneousCells = row.getDuplicateValuesErrors();
-            int rowBase = BOARD_UPPER_MARGIN + (iRow-1) * CELL_SIZE;
-            for (SudokuBoard.Cell erroneousCell : erroneousCells) {
-                int iCol = erroneousCell.columnIndex();
-                int colBase = BOARD_LEFT_MARGIN + (iCol-1) * CELL_SIZE;
-                gc.strokeLine(colBase, rowBase, colBase + CELL_SIZE, rowBase + CELL_SIZE);
-                gc.strokeLine(colBase, rowBase + CELL_SIZE, colBase + CELL_SIZE, rowBase);
-            }
+    private void drawHintValues(int boardSize, int colHint, int rowHint, long hintValues, GlyphAtlas.Style style) {
+        for (long remainingValues = hintValues; remainingValues != 0; remainingValues &= remainingValues - 1) {
+            int hintValue = Long.numberOfTrailingZeros(remainingValues) + 1;
+            int subRowInd = (hintValue - 1) / boardSize;
+            int subColInd = (hintValue - 1) % boardSize;
+            glyphAtlas.draw(gc, style, hintValue, colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
         }
     }
 
-    private void drawMissingValues(SudokuBoard board) {
-        gc.setFont(hintsFont);
-        gc.setFill(Color.GRAY);
-        drawRowMissingValues(board);
-        drawColumnMissingValues(board);
-        drawBoxMissingValues(board);
-    }
-
-    private void drawBoxMissingValues(SudokuBoard board) {
-        drawEmptyBoxHints(board.size(), CELL_SIZE * board.regionSize());
-        int hintLeftMargin = BOARD_LEFT_MARGIN + CELL_SIZE * board.regionSize() + 2*CELL_SIZE;
-        for (int iBoxRow = 1; iBoxRow <= board.size() ; ++iBoxRow) {
-            int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + (iBoxRow-1) * CELL_SIZE;
-            for (int iBoxCol = 1; iBoxCol <= board.size() ; ++iBoxCol) {
-                int colHint = hintLeftMargin + COL_OFFSET_HINT + (iBoxCol-1) * CELL_SIZE;
-                SudokuBoard.Box box = board.box(iBoxRow, iBoxCol);
-                SortedSet<Integer> missingValues = box.missingValues();
-                for (Integer missingValue : missingValues) {
-                    int subRowInd = (missingValue - 1) / board.size();
-                    int subColInd = (missingValue - 1) % board.size();
-                    gc.fillText(missingValue.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-                }
-            }
-        }
+    private void beginTile(int colBase, int rowBase) {
+        gc.save();
+        gc.beginPath();
+        gc.rect(colBase + TILE_INSET, rowBase + TILE_INSET, CELL_SIZE - 2*TILE_INSET, CELL_SIZE - 2*TILE_INSET);
+        gc.clip();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(colBase + TILE_INSET, rowBase + TILE_INSET, CELL_SIZE - 2*TILE_INSET, CELL_SIZE - 2*TILE_INSET);
+        gc.setLineWidth(2);
+    }
+
+    private void endTile() {
+        gc.restore();
+    }
+
+    private void strokeTileBorder(int colBase, int rowBase) {
+        gc.strokeRect(colBase + TILE_INSET + 1, rowBase + TILE_INSET + 1,
+                      CELL_SIZE - 2*TILE_INSET - 2, CELL_SIZE - 2*TILE_INSET - 2);
     }
 
     private void drawEmptyBoxHints(int boardSize, int boardWholeSize) {
@@ -294,67 +454,10 @@ public final class SudokuGui extends Application {
             int y = BOARD_UPPER_MARGIN + i * CELL_SIZE;
             gc.strokeLine(hintLeftMargin, y, hintLeftMargin + miniBoardSize, y);
         }
-    }
-
-    private void drawColumnMissingValues(SudokuBoard board) {
-        int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + board.regionSize() * CELL_SIZE;
-        for (int iCol = 1; iCol <= board.regionSize() ; ++iCol) {
-            SudokuBoard.Column col = board.column(iCol);
-            SortedSet<Integer> missingValues = col.missingValues();
-            int colHint = BOARD_LEFT_MARGIN + COL_OFFSET_HINT + (iCol-1) * CELL_SIZE;
-            for (Integer missingValue : missingValues) {
-                int subRowInd = (missingValue - 1) / board.size();
-                int subColInd = (missingValue - 1) % board.size();
-                gc.fillText(missingValue.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-            }
-        }
-    }
-
-    private void drawRowMissingValues(SudokuBoard board) {
-        int colHint = BOARD_LEFT_MARGIN + COL_OFFSET_HINT + board.regionSize() * CELL_SIZE;
-        for (int iRow = 1; iRow <= board.regionSize() ; ++iRow) {
-            SudokuBoard.Row row = board.row(iRow);
-            SortedSet<Integer> missingValues = row.missingValues();
-            int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + (iRow-1) * CELL_SIZE;
-            for (Integer missingValue : missingValues) {
-                int subRowInd = (missingValue - 1) / board.size();
-                int subColInd = (missingValue - 1) % board.size();
-                gc.fillText(missingValue.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-            }
-        }
-    }
-
-    private void drawBoardValues(SudokuBoard board) {
-        for (int iRow = 1; iRow <= board.regionSize() ; ++iRow) {
-            int rowBase = BOARD_UPPER_MARGIN + (iRow-1) * CELL_SIZE;
-            int rowHint = BOARD_UPPER_MARGIN + ROW_OFFSET_HINT + (iRow-1) * CELL_SIZE;
-            for (int iCol = 1; iCol <= board.regionSize() ; ++iCol) {
-                int colBase = BOARD_LEFT_MARGIN + (iCol-1) * CELL_SIZE;
-                int colHint = BOARD_LEFT_MARGIN + COL_OFFSET_HINT + (iCol-1) * CELL_SIZE;
-                SudokuBoard.Cell cell = board.cell(iRow, iCol);
-                if (cell.value().isPresent()) {
-                    gc.setFont(valuesFont);
-                    gc.setFill(Color.BLACK);
-                    gc.fillText(cell.value().get().toString(), colBase + COL_OFFSET_VAL, rowBase + ROW_OFFSET_VAL);
-//                    gc.setFont(startingValuesFont);
-                } else {
-                    gc.setFont(hintsFont);
-                    gc.setFill(Color.GRAY);
-                    SortedSet<Integer> possibleValues = cell.getPossibleValuesThatDoNotProduceDuplicate();
-                    for (Integer possibleValue : possibleValues) {
-                        int subRowInd = (possibleValue - 1) / board.size();
-                        int subColInd = (possibleValue - 1) % board.size();
-                        gc.fillText(possibleValue.toString(), colHint + subColInd * COL_SPACE_HINT, rowHint + subRowInd * ROW_SPACE_HINT);
-                    }
-                }
-            }
-        }
+        gc.setLineWidth(1);
     }
 
     private void drawEmptyBoard(int boardSize, int boardWholeSize) {
-        gc.setFill(Color.WHITE);
-        gc.fillRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
-        gc.setFill(Color.BLACK);
         gc.setLineWidth(4);
         gc.strokeRect(BOARD_LEFT_MARGIN, BOARD_UPPER_MARGIN, boardWholeSize, boardWholeSize);
         for (int i = 1; i < boardSize; ++i) {
@@ -382,6 +485,26 @@ public final class SudokuGui extends Application {
         }
     }
 
+    private static int cellLeft(int iCol) {
+        return BOARD_LEFT_MARGIN + (iCol-1) * CELL_SIZE;
+    }
+
+    private static int cellTop(int iRow) {
+        return BOARD_UPPER_MARGIN + (iRow-1) * CELL_SIZE;
+    }
+
+    private static int rowHintLeft(SudokuBoard board) {
+        return BOARD_LEFT_MARGIN + board.regionSize() * CELL_SIZE;
+    }
+
+    private static int columnHintTop(SudokuBoard board) {
+        return BOARD_UPPER_MARGIN + board.regionSize() * CELL_SIZE;
+    }
+
+    private static int boxHintLeft(SudokuBoard board) {
+        return BOARD_LEFT_MARGIN + board.regionSize() * CELL_SIZE + 2*CELL_SIZE;
+    }
+
     private void drawActionCommands(BorderPane root) {
         FlowPane flow = new FlowPane();
 
@@ -391,6 +514,8 @@ public final class SudokuGui extends Application {
         rowToSetField.setPrefWidth(30);
         colToSetField = new TextField();
         colToSetField.setPrefWidth(30);
+        sizeField = new TextField(Integer.toString(SudokuGame.DEFAULT_GAME_SIZE));
+        sizeField.setPrefWidth(30);
 
         valueToSetField.setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
@@ -413,9 +538,11 @@ public final class SudokuGui extends Application {
         btnClear.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
-                SudokuBoard sudokuBoard = sudokuGame.startNewGame(3);
-                numPossibilities.clear();
+                SudokuBoard sudokuBoard = sudokuGame.startNewGame(Integer.parseInt(sizeField.getText()));
+                hintLabel.setText("");
+                viewport = viewport.fitting(sudokuBoard);
                 drawBoard(sudokuBoard);
+                estimateSolutions(sudokuBoard);
             }
         });
 
@@ -424,12 +551,70 @@ public final class SudokuGui extends Application {
         btnUndo.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
+                long allocatedBytesBeforeMove = SudokuMetrics.currentThreadAllocatedBytes();
                 SudokuBoard sudokuBoard = sudokuGame.undo();
-                if (!numPossibilities.isEmpty()) {
-                    numPossibilities.removeLast();
-                }
-                drawBoard(sudokuBoard);
-                displayPossibilities();
+                drawMove(sudokuBoard, allocatedBytesBeforeMove);
+            }
+        });
+
+        Button btnRedo = new Button();
+        btnRedo.setText("redo");
+        btnRedo.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                long allocatedBytesBeforeMove = SudokuMetrics.currentThreadAllocatedBytes();
+                SudokuBoard sudokuBoard = sudokuGame.redo();
+                drawMove(sudokuBoard, allocatedBytesBeforeMove);
+            }
+        });
+
+        Button btnZoomIn = new Button();
+        btnZoomIn.setText("+");
+        btnZoomIn.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                setViewport(viewport.zoomedAt(ZOOM_STEP, CANVAS_WIDTH / 2.0, CANVAS_HEIGHT / 2.0));
+            }
+        });
+
+        Button btnZoomOut = new Button();
+        btnZoomOut.setText("-");
+        btnZoomOut.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                setViewport(viewport.zoomedAt(1 / ZOOM_STEP, CANVAS_WIDTH / 2.0, CANVAS_HEIGHT / 2.0));
+            }
+        });
+
+        Button btnFit = new Button();
+        btnFit.setText("Fit");
+        btnFit.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                setViewport(viewport.fitting(sudokuGame.getBoard()));
+            }
+        });
+
+        Button btnHint = new Button();
+        btnHint.setText("Hint");
+        btnHint.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                hintAction();
+            }
+        });
+        hintLabel = new Label();
+        estimateLabel = new Label();
+
+        incrementalRenderingBox = new CheckBox("Incremental rendering");
+        incrementalRenderingBox.setSelected(true);
+
+        diagnosticsBox = new CheckBox("Diagnostics");
+        diagnosticsBox.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                diagnosticsGc.getCanvas().setVisible(diagnosticsBox.isSelected());
+                drawDiagnostics();
             }
         });
 
@@ -442,11 +627,23 @@ public final class SudokuGui extends Application {
         flowChildren.add(new Label("Col"));
         flowChildren.add(colToSetField);
         flowChildren.add(btnClear);
+        flowChildren.add(new Label("Size"));
+        flowChildren.add(sizeField);
         flowChildren.add(btnUndo);
+        flowChildren.add(btnRedo);
+        flowChildren.add(btnZoomIn);
+        flowChildren.add(btnZoomOut);
+        flowChildren.add(btnFit);
+        flowChildren.add(btnHint);
+        flowChildren.add(incrementalRenderingBox);
+        flowChildren.add(diagnosticsBox);
+        flowChildren.add(estimateLabel);
+        flowChildren.add(hintLabel);
         root.setBottom(flow);
     }
 
     private void setValueAction() {
+        long allocatedBytesBeforeMove = SudokuMetrics.currentThreadAllocatedBytes();
         int rowToSet = Integer.parseInt(rowToSetField.getText());
         int colToSet = Integer.parseInt(colToSetField.getText());
 
@@ -460,28 +657,68 @@ public final class SudokuGui extends Application {
             if (valueToSet > board.maxValue()) {
                 return;
             }
-            SudokuBoard.Cell cell = board.cell(rowToSet, colToSet);
-            int numPossibleValues =
-                cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(USED_CONSTRAINT_LEVEL).size();
-            numPossibilities.add(numPossibleValues);
             sudokuBoard = sudokuGame.setCell(valueToSet, rowToSet, colToSet);
-            displayPossibilities();
         }
-        drawBoard(sudokuBoard);
+        drawMove(sudokuBoard, allocatedBytesBeforeMove);
+    }
+
+    /**
+     * Looks for the cheapest deduction on a worker thread, without analysing the whole board, then fills the fields
+     * with it: the player sets it with the Set button.
+     */
+    private void hintAction() {
+        SudokuBoard board = sudokuGame.getBoard();
+        hintLabel.setText("Looking for a hint...");
+        hintExecutor.submit(() -> {
+            Optional<SudokuHints.Hint> hint = SudokuHints.nextHint(board);
+            Platform.runLater(() -> {
+                if (board != sudokuGame.getBoard()) {
+                    return;
+                }
+                if (hint.isPresent()) {
+                    rowToSetField.setText(Integer.toString(hint.get().cell().rowIndex()));
+                    colToSetField.setText(Integer.toString(hint.get().cell().columnIndex()));
+                    valueToSetField.setText(Integer.toString(hint.get().value()));
+                    hintLabel.setText(hint.get().justification());
+                } else {
+                    hintLabel.setText("No hint");
+                }
+            });
+        });
+    }
+
+    /**
+     * Estimates the solution count of the board on a worker thread, see {@link SudokuSolver#estimateSolutions}. A newer
+     * board cancels the pending estimation.
+     */
+    private void estimateSolutions(SudokuBoard board) {
+        pendingEstimation.cancel(true);
+        estimateLabel.setText("Solutions: ...");
+        pendingEstimation = estimationExecutor.submit(() -> {
+            SudokuSolver.Estimate estimate =
+                    SudokuSolver.estimateSolutions(board, ESTIMATION_PROBES, estimationRandom);
+            Platform.runLater(() -> {
+                if (board == sudokuGame.getBoard()) {
+                    estimateLabel.setText(formatEstimate(estimate));
+                }
+            });
+        });
     }
 
-    private void displayPossibilities() {
-        System.out.println(numPossibilities);
-        BigInteger totalPossibilities = numPossibilities.stream().map(BigInteger::valueOf).reduce(BigInteger.ONE, BigInteger::multiply);
-        System.out.println(totalPossibilities);
+    private static String formatEstimate(SudokuSolver.Estimate estimate) {
+        if (estimate.exact()) {
+            return String.format(Locale.ROOT, "Solutions: %.0f", estimate.solutionCount());
+        }
+        return String.format(Locale.ROOT, "Solutions: ~%.3g (95%% in %.3g - %.3g)", estimate.solutionCount(),
+                             estimate.lowerBound(), estimate.upperBound());
     }
 
     private void setBoardActions() {
         gc.getCanvas().setOnMouseClicked(new EventHandler<MouseEvent>() {
             @Override
             public void handle(MouseEvent event) {
-                double xPos = event.getX();
-                double yPos = event.getY();
+                double xPos = viewport.toBoardX(event.getX());
+                double yPos = viewport.toBoardY(event.getY());
                 int iCol = (int) floor((xPos - BOARD_LEFT_MARGIN) / CELL_SIZE) + 1;
                 int iRow = (int) floor((yPos - BOARD_UPPER_MARGIN) / CELL_SIZE) + 1;
                 if (iRow >= 1 && iRow <= sudokuGame.getBoard().regionSize()) {
@@ -494,5 +731,202 @@ public final class SudokuGui extends Application {
                 }
             }
         });
+        gc.getCanvas().setOnScroll(new EventHandler<ScrollEvent>() {
+            @Override
+            public void handle(ScrollEvent event) {
+                if (event.isControlDown()) {
+                    double zoomFactor = event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+                    setViewport(viewport.zoomedAt(zoomFactor, event.getX(), event.getY()));
+                } else {
+                    setViewport(viewport.scrolledBy(-event.getDeltaX(), -event.getDeltaY()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Part of the board shown on the canvas. Board coordinates are the ones of a board drawn at zoom 1, the canvas
+     * shows the area starting at ({@code left}, {@code top}) in board coordinates, scaled by {@code zoom}.
+     *
+     * @param width canvas width in screen pixels
+     * @param height canvas height in screen pixels
+     */
+    private record Viewport(double zoom, double left, double top, double width, double height) {
+        private static final Viewport DEFAULT = new Viewport(1, 0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        private void apply(GraphicsContext gc) {
+            gc.setTransform(zoom, 0, 0, zoom, -left * zoom, -top * zoom);
+        }
+
+        private double toBoardX(double screenX) {
+            return left + screenX / zoom;
+        }
+
+        private double toBoardY(double screenY) {
+            return top + screenY / zoom;
+        }
+
+        private boolean showsTile(double tileLeft, double tileTop) {
+            return tileLeft + CELL_SIZE > left && tileLeft < left + width / zoom
+                   && tileTop + CELL_SIZE > top && tileTop < top + height / zoom;
+        }
+
+        private boolean showsHints() {
+            return CELL_SIZE * zoom >= MIN_CELL_PIXELS_FOR_HINTS;
+        }
+
+        private boolean showsValues() {
+            return CELL_SIZE * zoom >= MIN_CELL_PIXELS_FOR_VALUES;
+        }
+
+        /**
+         * Visible rows and columns are contiguous: from the first to the last visible one, none when the first is
+         * greater than the last.
+         */
+        private int firstVisibleRow() {
+            return Math.max((int) floor((top - BOARD_UPPER_MARGIN) / CELL_SIZE) + 1, 1);
+        }
+
+        private int lastVisibleRow(SudokuBoard board) {
+            return Math.min((int) ceil((top + height / zoom - BOARD_UPPER_MARGIN) / CELL_SIZE), board.regionSize());
+        }
+
+        private int firstVisibleColumn() {
+            return Math.max((int) floor((left - BOARD_LEFT_MARGIN) / CELL_SIZE) + 1, 1);
+        }
+
+        private int lastVisibleColumn(SudokuBoard board) {
+            return Math.min((int) ceil((left + width / zoom - BOARD_LEFT_MARGIN) / CELL_SIZE), board.regionSize());
+        }
+
+        /**
+         * @return the cells and hint panels to analyse, candidate values being left out when hints are not shown
+         */
+        private BoardAnalysis.Scope analysisScope(SudokuBoard board) {
+            BitSet rows = new BitSet();
+            BitSet columns = new BitSet();
+            for (int i = 1; i <= board.regionSize(); ++i) {
+                rows.set(i, showsTile(rowHintLeft(board), cellTop(i)));
+                columns.set(i, showsTile(cellLeft(i), columnHintTop(board)));
+            }
+            BitSet boxes = new BitSet();
+            for (int iBoxRow = 1; iBoxRow <= board.size(); ++iBoxRow) {
+                for (int iBoxCol = 1; iBoxCol <= board.size(); ++iBoxCol) {
+                    boxes.set((iBoxRow-1) * board.size() + iBoxCol,
+                              showsTile(boxHintLeft(board) + (iBoxCol-1) * CELL_SIZE, cellTop(iBoxRow)));
+                }
+            }
+            return new BoardAnalysis.Scope(firstVisibleRow(), lastVisibleRow(board),
+                                           firstVisibleColumn(), lastVisibleColumn(board),
+                                           rows, columns, boxes, showsHints());
+        }
+
+        /**
+         * @return the viewport zoomed by the given factor, the board point under the given screen point stays in place
+         */
+        private Viewport zoomedAt(double zoomFactor, double screenX, double screenY) {
+            double newZoom = Math.min(Math.max(zoom * zoomFactor, MIN_ZOOM), MAX_ZOOM);
+            return new Viewport(newZoom, toBoardX(screenX) - screenX / newZoom, toBoardY(screenY) - screenY / newZoom,
+                                width, height);
+        }
+
+        private Viewport scrolledBy(double screenDeltaX, double screenDeltaY) {
+            return new Viewport(zoom, left + screenDeltaX / zoom, top + screenDeltaY / zoom, width, height);
+        }
+
+        /**
+         * @return the viewport showing the whole board and its hint panels, without zooming in
+         */
+        private Viewport fitting(SudokuBoard board) {
+            double fittingZoom = Math.min(width / boardWidth(board), height / boardHeight(board));
+            return new Viewport(Math.max(Math.min(fittingZoom, 1), MIN_ZOOM), 0, 0, width, height);
+        }
+
+        /**
+         * @return the viewport scrolled so that it does not go past the board and its hint panels
+         */
+        private Viewport clampedTo(SudokuBoard board) {
+            double maxLeft = Math.max(boardWidth(board) - width / zoom, 0);
+            double maxTop = Math.max(boardHeight(board) - height / zoom, 0);
+            return new Viewport(zoom, Math.min(Math.max(left, 0), maxLeft), Math.min(Math.max(top, 0), maxTop),
+                                width, height);
+        }
+
+        private static double boardWidth(SudokuBoard board) {
+            return boxHintLeft(board) + board.size() * CELL_SIZE + BOARD_LEFT_MARGIN;
+        }
+
+        private static double boardHeight(SudokuBoard board) {
+            return columnHintTop(board) + CELL_SIZE + BOARD_UPPER_MARGIN;
+        }
+    }
+
+    /**
+     * Displayed state of the visible part of the board. Two successive displays in the same viewport are compared
+     * tile by tile, only the tiles that changed are redrawn. Cells and boxes are indexed row after row starting at 0,
+     * rows and columns by their index.
+     */
+    private record BoardDisplay(int size, Viewport viewport, Map<Integer, CellDisplay> cells,
+                                Map<Integer, RegionDisplay> rows, Map<Integer, RegionDisplay> columns,
+                                Map<Integer, RegionDisplay> boxes) {
+
+        /**
+         * @param hint next step of the board, highlighted when hints are shown
+         */
+        private static BoardDisplay of(SudokuBoard board, Viewport viewport, BoardAnalysis analysis,
+                                       Optional<SudokuHints.Hint> hint) {
+            long hintsMask = viewport.showsHints() ? -1L : 0L;
+            int hintCell = hint.isPresent() && viewport.showsHints()
+                           ? (hint.get().cell().rowIndex() - 1) * board.regionSize() + hint.get().cell().columnIndex() - 1
+                           : -1;
+            ImmutableMap.Builder<Integer, CellDisplay> cells = ImmutableMap.builder();
+            for (int iRow = viewport.firstVisibleRow(); iRow <= viewport.lastVisibleRow(board); ++iRow) {
+                for (int iCol = viewport.firstVisibleColumn(); iCol <= viewport.lastVisibleColumn(board); ++iCol) {
+                    int cellIndex = (iRow-1) * board.regionSize() + (iCol-1);
+                    cells.put(cellIndex,
+                              new CellDisplay(analysis.value(iRow, iCol),
+                                              analysis.possibleValuesMask(iRow, iCol) & hintsMask,
+                                              analysis.isDuplicateValue(iRow, iCol),
+                                              analysis.isUnfillable(iRow, iCol),
+                                              cellIndex == hintCell ? hint.get().value() : CellDisplay.EMPTY,
+                                              analysis.candidateValuesMask(iRow, iCol) & hintsMask));
+                }
+            }
+
+            ImmutableMap.Builder<Integer, RegionDisplay> rows = ImmutableMap.builder();
+            ImmutableMap.Builder<Integer, RegionDisplay> columns = ImmutableMap.builder();
+            for (int i = 1; i <= board.regionSize(); ++i) {
+                if (viewport.showsTile(rowHintLeft(board), cellTop(i))) {
+                    rows.put(i, new RegionDisplay(analysis.rowMissingValuesMask(i) & hintsMask,
+                                                  analysis.rowImpossibleToFillValuesMask(i)));
+                }
+                if (viewport.showsTile(cellLeft(i), columnHintTop(board))) {
+                    columns.put(i, new RegionDisplay(analysis.columnMissingValuesMask(i) & hintsMask,
+                                                     analysis.columnImpossibleToFillValuesMask(i)));
+                }
+            }
+            ImmutableMap.Builder<Integer, RegionDisplay> boxes = ImmutableMap.builder();
+            for (int iBoxRow = 1; iBoxRow <= board.size(); ++iBoxRow) {
+                for (int iBoxCol = 1; iBoxCol <= board.size(); ++iBoxCol) {
+                    if (viewport.showsTile(boxHintLeft(board) + (iBoxCol-1) * CELL_SIZE, cellTop(iBoxRow))) {
+                        boxes.put((iBoxRow-1) * board.size() + (iBoxCol-1),
+                                  new RegionDisplay(analysis.boxMissingValuesMask(iBoxRow, iBoxCol) & hintsMask,
+                                                    analysis.boxImpossibleToFillValuesMask(iBoxRow, iBoxCol)));
+                    }
+                }
+            }
+            return new BoardDisplay(board.size(), viewport, cells.build(), rows.build(), columns.build(), boxes.build());
+        }
+    }
+
+    /**
+     * Sets of values are bit masks, see {@link BoardAnalysis}.
+     */
+    private record CellDisplay(int value, long possibleValues, boolean duplicateValue, boolean unfillable,
+                               int hintValue, long candidateValues) {
+        private static final int EMPTY = 0;
+    }
+
+    private record RegionDisplay(long missingValues, long impossibleToFillValues) {
     }
 }
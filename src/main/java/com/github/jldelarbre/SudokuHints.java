@@ -0,0 +1,130 @@
+package com.github.jldelarbre;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.SortedSet;
+
+import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+
+/**
+ * Finds the next step for the player: the cheapest deduction filling a cell, with its justification.<br>
+ * Deductions are tried from the cheapest: naked single, then hidden single, at each constraint level in turn (level n
+ * eliminates first the values of the naked subsets of n cells, see
+ * {@link SudokuBoard.Cell#getRemainingCandidateValuesAfterEliminationFromNeighboringCells(int)}). The search returns
+ * as soon as a deduction is found, so higher constraint levels are only computed when the lower ones give nothing.
+ */
+public final class SudokuHints {
+
+    public enum Technique {
+        /** The value is the only candidate left in the cell */
+        NAKED_SINGLE,
+        /** The cell is the only position left for the value in one of its regions */
+        HIDDEN_SINGLE
+    }
+
+    private SudokuHints() {
+    }
+
+    /**
+     * @return the cheapest deduction, empty when the board is complete, erroneous or needs more than the constraint
+     * levels of the board. The search also gives up, empty, when the thread is interrupted
+     */
+    public static Optional<Hint> nextHint(SudokuBoard board) {
+        if (board.hasConflicts()) {
+            return Optional.empty();
+        }
+        for (int constraintLevel = 0; constraintLevel <= USED_CONSTRAINT_LEVEL; ++constraintLevel) {
+            for (SudokuBoard.Cell cell : board.cells()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return Optional.empty();
+                }
+                if (cell.value().isPresent()) {
+                    continue;
+                }
+                SortedSet<Integer> candidateValues =
+                        cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(constraintLevel);
+                if (candidateValues.isEmpty()) {
+                    // Erroneous board: further deductions would be meaningless
+                    return Optional.empty();
+                }
+                if (candidateValues.size() == 1) {
+                    return Optional.of(new Hint(Technique.NAKED_SINGLE, constraintLevel, cell, candidateValues.first(),
+                                                Optional.empty()));
+                }
+            }
+            for (SudokuBoard.Cell cell : board.cells()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return Optional.empty();
+                }
+                if (cell.value().isPresent()) {
+                    continue;
+                }
+                SortedSet<Integer> candidateValues =
+                        cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(constraintLevel);
+                if (candidateValues.size() == 1) {
+                    int value = candidateValues.first();
+                    return Optional.of(new Hint(Technique.HIDDEN_SINGLE, constraintLevel, cell, value,
+                                                uniquePositionRegion(board, cell, value, constraintLevel)));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<SudokuBoard.Region> uniquePositionRegion(SudokuBoard board, SudokuBoard.Cell cell,
+                                                                     int value, int constraintLevel) {
+        if (isUniquePosition(board.row(cell.rowIndex()), value, constraintLevel)) {
+            return Optional.of(board.row(cell.rowIndex()));
+        }
+        if (isUniquePosition(board.column(cell.columnIndex()), value, constraintLevel)) {
+            return Optional.of(board.column(cell.columnIndex()));
+        }
+        if (isUniquePosition(cell.box(), value, constraintLevel)) {
+            return Optional.of(cell.box());
+        }
+        for (SudokuBoard.VariantRegion region : board.variantRegions()) {
+            if (region.cells().contains(cell) && isUniquePosition(region, value, constraintLevel)) {
+                return Optional.of(region);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isUniquePosition(SudokuBoard.Region region, int value, int constraintLevel) {
+        return region.isComplete() && Long.bitCount(region.candidatePositionsMask(value, constraintLevel)) == 1;
+    }
+
+    /**
+     * @param technique deduction giving the value
+     * @param constraintLevel constraint level of the candidates the deduction is made on
+     * @param cell cell to fill
+     * @param value value of the cell
+     * @param region region where the cell is the only position of the value, for a hidden single
+     */
+    public record Hint(Technique technique, int constraintLevel, SudokuBoard.Cell cell, int value,
+                       Optional<SudokuBoard.Region> region) {
+
+        public String justification() {
+            String position = "(" + cell.rowIndex() + ", " + cell.columnIndex() + ") = " + value + ": ";
+            String reason = switch (technique) {
+                case NAKED_SINGLE -> "the only candidate of the cell";
+                case HIDDEN_SINGLE -> "the only position of " + value + " in its "
+                                      + region.map(Hint::regionName).orElse("region");
+            };
+            String eliminations = constraintLevel == 0
+                                  ? "" : ", once the values of naked subsets of " + constraintLevel
+                                         + " cells are eliminated";
+            return position + reason + eliminations;
+        }
+
+        private static String regionName(SudokuBoard.Region region) {
+            return switch (region) {
+                case SudokuBoard.Row row -> "row " + row.index();
+                case SudokuBoard.Column column -> "column " + column.index();
+                case SudokuBoard.Box box -> "box (" + box.boxRowIndex() + ", " + box.boxColumnIndex() + ")";
+                case SudokuBoard.VariantRegion variantRegion -> variantRegion.kind().name().toLowerCase(Locale.ROOT);
+                default -> "region";
+            };
+        }
+    }
+}
@@ -2,6 +2,16 @@ package com.github.jldelarbre;
 
 public class SudokuMain {
     public static void main(String[] args) {
+        SudokuMetrics.registerMBean();
+        if (args.length > 0 && SudokuCli.isCommand(args[0])) {
+            int exitCode = new SudokuCli(System.out, System.err).run(args);
+            System.exit(exitCode);
+        }
+        startGui(args);
+    }
+
+    // Kept apart from the batch mode path: SudokuGui (and JavaFX) is only loaded when this method runs
+    private static void startGui(String[] args) {
         SudokuGame sudokuGame = SudokuGame.build();
         SudokuGui.start(sudokuGame, args);
     }
@@ -0,0 +1,187 @@
+package com.github.jldelarbre;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+
+/**
+ * Lightweight in-process counters of the board engine, cheap enough to stay always on. They are cumulated since the
+ * start of the process, read by the diagnostics overlay of the GUI and exposed over JMX (see {@link #registerMBean()}).
+ * <br>
+ * The system property {@code sudoku.metrics.disabled=true} turns counting into a no-op: the flag is a constant, so the
+ * JIT removes the counting code.
+ */
+final class SudokuMetrics {
+
+    static final String OBJECT_NAME = "com.github.jldelarbre:type=SudokuMetrics";
+    static final boolean ENABLED = !Boolean.getBoolean("sudoku.metrics.disabled");
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int LEVEL_COUNT = USED_CONSTRAINT_LEVEL + 1;
+
+    enum Counter {
+        /** Boards created by {@link SudokuBoard#set} and {@link SudokuBoard#clear} */
+        BOARDS_CREATED,
+        /** Nuplets whose values have been eliminated from a cell */
+        NUPLET_ELIMINATIONS,
+        /** Candidates found to have a unique position in a region of their cell */
+        HIDDEN_SINGLES,
+        /** Cumulated duration of the {@link BoardAnalysis} phases */
+        ANALYSIS_NANOS;
+
+        private final LongAdder adder = new LongAdder();
+
+        void increment() {
+            if (ENABLED) {
+                adder.increment();
+            }
+        }
+
+        void add(long value) {
+            if (ENABLED) {
+                adder.add(value);
+            }
+        }
+
+        long sum() {
+            return adder.sum();
+        }
+    }
+
+    /**
+     * Counters per constraint level. A cache miss is followed by the computation of the entry, so misses also count
+     * the computations.
+     */
+    enum LevelCounter {
+        CANDIDATE_CACHE_HITS,
+        CANDIDATE_CACHE_MISSES,
+        UNIQUE_POSITION_CACHE_HITS,
+        UNIQUE_POSITION_CACHE_MISSES;
+
+        private final LongAdder[] adders = new LongAdder[LEVEL_COUNT];
+
+        LevelCounter() {
+            for (int level = 0; level < LEVEL_COUNT; ++level) {
+                adders[level] = new LongAdder();
+            }
+        }
+
+        void increment(int constraintLevel) {
+            if (ENABLED) {
+                adders[constraintLevel].increment();
+            }
+        }
+
+        long sum(int constraintLevel) {
+            return adders[constraintLevel].sum();
+        }
+
+        /**
+         * @return sum over all constraint levels
+         */
+        long sum() {
+            long sum = 0;
+            for (LongAdder adder : adders) {
+                sum += adder.sum();
+            }
+            return sum;
+        }
+
+        private long[] sumPerLevel() {
+            long[] sums = new long[LEVEL_COUNT];
+            for (int level = 0; level < LEVEL_COUNT; ++level) {
+                sums[level] = adders[level].sum();
+            }
+            return sums;
+        }
+    }
+
+    private SudokuMetrics() {
+    }
+
+    /**
+     * Registers the counters in the platform MBean server, once per process.
+     */
+    static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * @return hits / (hits + misses) over all constraint levels, NaN before the first lookup
+     */
+    static double hitRate(LevelCounter hits, LevelCounter misses) {
+        long hitCount = hits.sum();
+        long lookupCount = hitCount + misses.sum();
+        return lookupCount == 0 ? Double.NaN : (double) hitCount / lookupCount;
+    }
+
+    /**
+     * @return bytes allocated so far by the current thread, or -1 when the JVM does not measure it
+     */
+    static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static final class MXBean implements SudokuMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public long[] getCandidateCacheHits() {
+            return LevelCounter.CANDIDATE_CACHE_HITS.sumPerLevel();
+        }
+
+        @Override
+        public long[] getCandidateCacheMisses() {
+            return LevelCounter.CANDIDATE_CACHE_MISSES.sumPerLevel();
+        }
+
+        @Override
+        public long[] getUniquePositionCacheHits() {
+            return LevelCounter.UNIQUE_POSITION_CACHE_HITS.sumPerLevel();
+        }
+
+        @Override
+        public long[] getUniquePositionCacheMisses() {
+            return LevelCounter.UNIQUE_POSITION_CACHE_MISSES.sumPerLevel();
+        }
+
+        @Override
+        public long getNupletEliminations() {
+            return Counter.NUPLET_ELIMINATIONS.sum();
+        }
+
+        @Override
+        public long getHiddenSingles() {
+            return Counter.HIDDEN_SINGLES.sum();
+        }
+
+        @Override
+        public long getBoardsCreated() {
+            return Counter.BOARDS_CREATED.sum();
+        }
+
+        @Override
+        public long getAnalysisNanos() {
+            return Counter.ANALYSIS_NANOS.sum();
+        }
+    }
+}
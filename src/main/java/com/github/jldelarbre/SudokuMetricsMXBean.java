@@ -0,0 +1,27 @@
+package com.github.jldelarbre;
+
+/**
+ * JMX view of {@link SudokuMetrics}, registered as {@value SudokuMetrics#OBJECT_NAME}.<br>
+ * Arrays are indexed by constraint level. Counters are cumulated since the start of the process and stay at 0 when the
+ * metrics are disabled.
+ */
+public interface SudokuMetricsMXBean {
+
+    boolean isEnabled();
+
+    long[] getCandidateCacheHits();
+
+    long[] getCandidateCacheMisses();
+
+    long[] getUniquePositionCacheHits();
+
+    long[] getUniquePositionCacheMisses();
+
+    long getNupletEliminations();
+
+    long getHiddenSingles();
+
+    long getBoardsCreated();
+
+    long getAnalysisNanos();
+}
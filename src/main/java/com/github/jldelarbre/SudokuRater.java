@@ -0,0 +1,69 @@
+package com.github.jldelarbre;
+
+import java.util.Map;
+import java.util.SortedSet;
+
+import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+/**
+ * Rates a puzzle by the constraint level the board analysis needs to fill it.<br>
+ * Cells are filled by deduction, always using the lowest constraint level that gives at least one cell with a single
+ * remaining candidate. When no more deduction is possible, the remaining board is handed to {@link SudokuSolver}.
+ */
+public final class SudokuRater {
+
+    private SudokuRater() {
+    }
+
+    public static Rating rate(SudokuBoard puzzle) {
+        SudokuBoard board = puzzle;
+        int hardestConstraintLevel = 0;
+        int deductions = 0;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int constraintLevel = 0; constraintLevel <= USED_CONSTRAINT_LEVEL && !progress; ++constraintLevel) {
+                Map<SudokuBoard.Cell, Integer> deducedValues = deducedValues(board, constraintLevel);
+                for (Map.Entry<SudokuBoard.Cell, Integer> deducedValue : deducedValues.entrySet()) {
+                    SudokuBoard.Cell cell = deducedValue.getKey();
+                    board = board.set(deducedValue.getValue(), cell.rowIndex(), cell.columnIndex());
+                    ++deductions;
+                    hardestConstraintLevel = Math.max(hardestConstraintLevel, constraintLevel);
+                    progress = true;
+                }
+            }
+        }
+        boolean solvedByDeduction = board.cells().stream().allMatch(cell -> cell.value().isPresent());
+        long searchNodes = solvedByDeduction ? 0 : SudokuSolver.solve(board).nodes();
+        return new Rating(hardestConstraintLevel, deductions, solvedByDeduction, searchNodes);
+    }
+
+    private static Map<SudokuBoard.Cell, Integer> deducedValues(SudokuBoard board, int constraintLevel) {
+        Map<SudokuBoard.Cell, Integer> deducedValues = newLinkedHashMap();
+        for (SudokuBoard.Cell cell : board.cells()) {
+            if (cell.value().isPresent()) {
+                continue;
+            }
+            SortedSet<Integer> candidateValues =
+                    cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(constraintLevel);
+            if (candidateValues.isEmpty()) {
+                // Erroneous board: further deductions would be meaningless
+                return newLinkedHashMap();
+            }
+            if (candidateValues.size() == 1) {
+                deducedValues.put(cell, candidateValues.first());
+            }
+        }
+        return deducedValues;
+    }
+
+    /**
+     * @param hardestConstraintLevel highest constraint level needed by the deductions
+     * @param deductions number of cells filled by deduction
+     * @param solvedByDeduction true when deductions alone complete the board
+     * @param searchNodes nodes explored by the solver to complete the board when deductions are not enough
+     */
+    public record Rating(int hardestConstraintLevel, int deductions, boolean solvedByDeduction, long searchNodes) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.jldelarbre;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Local HTTP service over the engine, built on the JDK HTTP server, each request being handled by its own virtual
+ * thread.<br>
+ * Endpoints take a POST body holding one or more puzzles, one per line in the compact line format (see
+ * {@link SudokuBoard#parse(String)}), and answer one line per puzzle, in the same order:
+ * <ul>
+ *     <li>{@code /solve}: first solution, or {@code unsolvable}</li>
+ *     <li>{@code /count-solutions?limit=n}: number of solutions found up to the limit (default 1000, at most
+ *     100000) and whether the search was exhaustive</li>
+ *     <li>{@code /candidates?level=n}: candidates of each cell at the constraint level (default
+ *     {@link SudokuBoard#USED_CONSTRAINT_LEVEL}), space separated, {@code -} for a filled cell</li>
+ *     <li>{@code /validate}: {@code invalid}, {@code unsolvable}, {@code unique} or {@code multiple}</li>
+ * </ul>
+ * The search of each puzzle is bounded by a number of nodes, so that no request holds its permit indefinitely: past
+ * the budget, {@code /solve} and {@code /validate} answer {@code unknown} and {@code /count-solutions} reports a non
+ * exhaustive count.<br>
+ * Requests beyond the concurrency limit are rejected at once with status 429. Results are kept in a
+ * {@link ResultCache}, keyed by the endpoint, its parameters and the puzzle values.<br>
+ * Like {@link SudokuCli}, this class shall not reference any JavaFX class.
+ */
+final class SudokuServer implements AutoCloseable {
+
+    private static final int DEFAULT_SOLUTION_LIMIT = 1000;
+    private static final int MAX_SOLUTION_LIMIT = 100_000;
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final Semaphore requestPermits;
+    private final ResultCache resultCache;
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private SudokuServer(HttpServer httpServer, int maxConcurrentRequests, long cacheBytes) {
+        this.httpServer = httpServer;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.requestPermits = new Semaphore(maxConcurrentRequests);
+        this.resultCache = new ResultCache(cacheBytes);
+    }
+
+    /**
+     * @param address address to listen to, port 0 to pick a free port
+     * @param maxConcurrentRequests number of requests processed at the same time, 0 rejects every request
+     * @param cacheBytes bound of the result cache footprint, 0 disables the cache
+     * @param maxNodes search nodes explored for each puzzle, beyond which the search gives up
+     */
+    static SudokuServer start(InetSocketAddress address, int maxConcurrentRequests, long cacheBytes, long maxNodes)
+            throws IOException {
+        SudokuServer server = new SudokuServer(HttpServer.create(address, 0), maxConcurrentRequests, cacheBytes);
+        Map<String, Endpoint> endpoints = ImmutableMap.of(
+                "/solve", query -> board -> SudokuCli.solve(board, maxNodes),
+                "/count-solutions", query -> countSolutions(limit(query), maxNodes),
+                "/candidates", query -> candidates(level(query)),
+                "/validate", query -> board -> SudokuCli.validate(board, maxNodes));
+        endpoints.forEach((path, endpoint) ->
+                server.httpServer.createContext(path, exchange -> server.handle(exchange, endpoint)));
+        server.httpServer.setExecutor(server.executor);
+        server.httpServer.start();
+        return server;
+    }
+
+    int port() {
+        return httpServer.getAddress().getPort();
+    }
+
+    ResultCache resultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Blocks until the server is closed.
+     */
+    void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+        closed.countDown();
+    }
+
+    /**
+     * Builds the task applied to each puzzle of a request from the request query.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        Function<SudokuBoard, String> task(Map<String, String> query);
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            if (!requestPermits.tryAcquire()) {
+                respond(exchange, 429, "Too many requests");
+                return;
+            }
+            try {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    respond(exchange, 405, "Method not allowed");
+                    return;
+                }
+                final Map<String, String> query;
+                final Function<SudokuBoard, String> task;
+                try {
+                    query = parseQuery(exchange.getRequestURI().getRawQuery());
+                    task = endpoint.task(query);
+                } catch (IllegalArgumentException e) {
+                    respond(exchange, 400, e.getMessage());
+                    return;
+                }
+                String operation = exchange.getRequestURI().getPath() + " " + ImmutableSortedMap.copyOf(query);
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                StringBuilder response = new StringBuilder();
+                for (String line : body.lines().map(String::strip).toList()) {
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        response.append(process(operation, task, line)).append('\n');
+                    }
+                }
+                respond(exchange, 200, response.toString());
+            } finally {
+                requestPermits.release();
+            }
+        }
+    }
+
+    /**
+     * The puzzle is only turned into a {@link SudokuBoard} when its result is not cached.
+     */
+    private String process(String operation, Function<SudokuBoard, String> task, String line) {
+        final int[] values;
+        try {
+            values = SudokuBoard.parseValues(line);
+        } catch (IllegalArgumentException e) {
+            return "error: " + e.getMessage();
+        }
+        return resultCache.get(operation, values, () -> SudokuCli.process(task, line));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body.endsWith("\n") || body.isEmpty() ? body : body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(bytes);
+            }
+        }
+    }
+
+    private static Function<SudokuBoard, String> countSolutions(int limit, long maxNodes) {
+        return board -> {
+            SudokuSolver.Result result = SudokuSolver.countSolutions(board, limit, maxNodes);
+            return "count=" + result.solutionCount() + " exhaustive=" + result.exhaustive();
+        };
+    }
+
+    private static Function<SudokuBoard, String> candidates(int constraintLevel) {
+        return board -> {
+            StringBuilder line = new StringBuilder();
+            for (SudokuBoard.Cell cell : board.cells()) {
+                if (!line.isEmpty()) {
+                    line.append(' ');
+                }
+                if (cell.value().isPresent()) {
+                    line.append('-');
+                    continue;
+                }
+                SortedSet<Integer> candidates =
+                        cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(constraintLevel);
+                for (int candidate : candidates) {
+                    line.append(SudokuBoard.valueChar(candidate));
+                }
+            }
+            return line.toString();
+        };
+    }
+
+    private static int level(Map<String, String> query) {
+        String level = query.getOrDefault("level", Integer.toString(SudokuBoard.USED_CONSTRAINT_LEVEL));
+        int constraintLevel = parseInt("level", level);
+        if (constraintLevel < 0 || constraintLevel > SudokuBoard.USED_CONSTRAINT_LEVEL) {
+            throw new IllegalArgumentException("Parameter level shall be in [0 " + SudokuBoard.USED_CONSTRAINT_LEVEL
+                                               + "]");
+        }
+        return constraintLevel;
+    }
+
+    private static int limit(Map<String, String> query) {
+        if (!query.containsKey("limit")) {
+            return DEFAULT_SOLUTION_LIMIT;
+        }
+        int limit = parseInt("limit", query.get("limit"));
+        if (limit < 1 || limit > MAX_SOLUTION_LIMIT) {
+            throw new IllegalArgumentException("Parameter limit shall be in [1 " + MAX_SOLUTION_LIMIT + "]");
+        }
+        return limit;
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " shall be an integer");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        try {
+            return Splitter.on('&').withKeyValueSeparator('=').split(query);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed query: " + query);
+        }
+    }
+}
@@ -0,0 +1,602 @@
+package com.github.jldelarbre;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Backtracking solver working on primitive candidate masks (bit {@code value - 1} set when value is a candidate).<br>
+ * Each search node propagates naked and hidden singles before branching on the cell having the fewest candidates.<br>
+ * Units are read from the {@link ConstraintGraph} of the board, so variants are solved by the same code: hidden singles
+ * are searched in complete units, and the candidates of cage cells are bounded by the sum of the cage.
+ */
+public final class SudokuSolver {
+
+    private static final long GENERATION_NODE_BUDGET = 10_000;
+    private static final long ESTIMATION_EXACT_NODE_BUDGET = 2_000;
+    private static final double CONFIDENCE_Z = 1.96;
+
+    private SudokuSolver() {
+    }
+
+    public static Result solve(SudokuBoard board) {
+        return countSolutions(board, 1);
+    }
+
+    public static Result countSolutions(SudokuBoard board, long limit) {
+        return countSolutions(board, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param board board to solve
+     * @param limit search stops as soon as {@code limit} solutions are found
+     * @param maxNodes search stops when more than {@code maxNodes} branches have been explored
+     * @return number of solutions found (at most {@code limit}), first solution if any and search statistics. The
+     * search also stops, not exhaustive, when the thread is interrupted
+     */
+    public static Result countSolutions(SudokuBoard board, long limit, long maxNodes) {
+        SudokuEvents.SolverRun event = new SudokuEvents.SolverRun();
+        event.begin();
+        Geometry geometry = new Geometry(board.constraintGraph());
+        Search search = new Search(geometry, board.toValues(), null);
+        search.stopsWhenInterrupted = true;
+        int[] firstSolution = null;
+        long solutionCount = 0;
+        while (solutionCount < limit) {
+            int[] solution = search.next(maxNodes);
+            if (solution == null) {
+                break;
+            }
+            if (firstSolution == null) {
+                firstSolution = solution;
+            }
+            ++solutionCount;
+        }
+        Optional<SudokuBoard> solvedBoard = firstSolution == null ?
+                Optional.empty() : Optional.of(SudokuBoard.fromValues(board.constraintGraph(), firstSolution));
+        Result result = new Result(solvedBoard, solutionCount, search.nodes, search.backtracks, search.isExhausted());
+        if (event.shouldCommit()) {
+            event.size = board.size();
+            event.nodes = result.nodes();
+            event.backtracks = result.backtracks();
+            event.solutionCount = result.solutionCount();
+            event.outcome = outcome(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Lazy stream of all the solutions of the board, in depth first order: the search advances only as solutions are
+     * consumed, so {@code limit}, {@code findFirst} or {@code anyMatch} stop it early.<br>
+     * A parallel stream splits the search tree at its unexplored branches, no solution is buffered.
+     *
+     * @param board board to solve
+     * @return solutions of the board, empty when it has none
+     */
+    public static Stream<SudokuBoard> solutions(SudokuBoard board) {
+        Geometry geometry = new Geometry(board.constraintGraph());
+        return StreamSupport.stream(new SolutionSpliterator(board.constraintGraph(),
+                                                            new Search(geometry, board.toValues(), null),
+                                                            Long.MAX_VALUE), false);
+    }
+
+    private static String outcome(Result result) {
+        if (result.solutionCount() > 1) {
+            return "multiple";
+        }
+        if (result.exhaustive()) {
+            return result.solutionCount() == 0 ? "unsolvable" : "unique";
+        }
+        return result.solutionCount() == 0 ? "incomplete" : "solved";
+    }
+
+    /**
+     * Generates a puzzle having a unique solution: a random complete grid is built, then values are removed in random
+     * order as long as the solution stays unique.
+     *
+     * @param size board size (3 for a 9x9 board)
+     * @param random source of randomness, the same seed always produces the same puzzle
+     * @return generated puzzle
+     */
+    public static SudokuBoard generate(int size, Random random) {
+        Geometry geometry = new Geometry(ConstraintGraph.classic(size));
+        int[] puzzle = new Search(geometry, new int[geometry.cellCount], random).next(Long.MAX_VALUE);
+        List<Integer> cellsToClear = new ArrayList<>(geometry.cellCount);
+        for (int cell = 0; cell < geometry.cellCount; ++cell) {
+            cellsToClear.add(cell);
+        }
+        Collections.shuffle(cellsToClear, random);
+        for (int cell : cellsToClear) {
+            int value = puzzle[cell];
+            puzzle[cell] = 0;
+            Search search = new Search(geometry, puzzle, null);
+            boolean unique = search.next(GENERATION_NODE_BUDGET) != null
+                             && search.next(GENERATION_NODE_BUDGET) == null
+                             && search.isExhausted();
+            if (!unique) {
+                puzzle[cell] = value;
+            }
+        }
+        return SudokuBoard.fromValues(size, puzzle);
+    }
+
+    /**
+     * Estimates the number of solutions of the board. When the whole search tree is explored within a small node
+     * budget, the count is exact. Otherwise it is estimated with Knuth's random probes: each probe follows a random path
+     * of the search tree, choosing among the branches surviving propagation, and weighs the leaf it reaches by the
+     * product of the branch counts along the path (0 for a dead end). The mean of the probes is an unbiased estimate.
+     *
+     * @param board board to estimate
+     * @param probes number of random probes, at least 2
+     * @param random source of the probe paths
+     * @return estimated solution count with its 95% confidence bounds. When the thread is interrupted, the estimation
+     * stops early and its result only relies on the work done so far
+     */
+    public static Estimate estimateSolutions(SudokuBoard board, int probes, Random random) {
+        return estimateSolutions(board, probes, random, ESTIMATION_EXACT_NODE_BUDGET);
+    }
+
+    static Estimate estimateSolutions(SudokuBoard board, int probes, Random random, long exactNodeBudget) {
+        if (probes < 2) {
+            throw new IllegalArgumentException("Probes = " + probes + " shall be at least 2");
+        }
+        Result exactCount = countSolutions(board, Long.MAX_VALUE, exactNodeBudget);
+        if (exactCount.exhaustive()) {
+            return Estimate.exact(exactCount.solutionCount());
+        }
+        Geometry geometry = new Geometry(board.constraintGraph());
+        State root = geometry.initialState(board.toValues());
+        double sum = 0;
+        double sumOfSquares = 0;
+        int probeCount = 0;
+        while (probeCount < probes && !Thread.currentThread().isInterrupted()) {
+            double weight = root == null ? 0 : probe(geometry, root, random);
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            sum += weight;
+            sumOfSquares += weight * weight;
+            ++probeCount;
+        }
+        // Solutions found before the budget ran out are a sure lower bound
+        if (probeCount < 2) {
+            return new Estimate(exactCount.solutionCount(), exactCount.solutionCount(), Double.POSITIVE_INFINITY,
+                                false);
+        }
+        double mean = sum / probeCount;
+        double variance = Math.max(sumOfSquares / probeCount - mean * mean, 0) * probeCount / (probeCount - 1);
+        double margin = CONFIDENCE_Z * Math.sqrt(variance / probeCount);
+        double lowerBound = Math.max(mean - margin, exactCount.solutionCount());
+        return new Estimate(Math.max(mean, lowerBound), lowerBound, Math.max(mean + margin, lowerBound), false);
+    }
+
+    /**
+     * @return weight of the leaf reached, 0 when the thread is interrupted
+     */
+    private static double probe(Geometry geometry, State root, Random random) {
+        State state = root;
+        double weight = 1;
+        State[] children = new State[Long.SIZE];
+        while (!Thread.currentThread().isInterrupted()) {
+            int cell = geometry.selectCell(state);
+            if (cell == -1) {
+                return weight;
+            }
+            int childCount = 0;
+            for (long values = state.candidates[cell]; values != 0; values &= values - 1) {
+                State child = state.copy();
+                if (geometry.assign(child, cell, numberOfTrailingZeros(values) + 1) && geometry.propagate(child)) {
+                    children[childCount++] = child;
+                }
+            }
+            if (childCount == 0) {
+                return 0;
+            }
+            weight *= childCount;
+            state = children[random.nextInt(childCount)];
+        }
+        return 0;
+    }
+
+    /**
+     * @param solutionCount estimated number of solutions
+     * @param lowerBound lower bound of the 95% confidence interval
+     * @param upperBound upper bound of the 95% confidence interval
+     * @param exact true when the solutions have all been counted, the bounds are then the count
+     */
+    public record Estimate(double solutionCount, double lowerBound, double upperBound, boolean exact) {
+
+        private static Estimate exact(long solutionCount) {
+            return new Estimate(solutionCount, solutionCount, solutionCount, true);
+        }
+    }
+
+    /**
+     * @param solution first solution found, if any
+     * @param solutionCount number of solutions found
+     * @param nodes number of branches explored
+     * @param backtracks number of branches leading to a contradiction
+     * @param exhaustive true when the whole search tree has been explored
+     */
+    public record Result(Optional<SudokuBoard> solution, long solutionCount, long nodes, long backtracks,
+                         boolean exhaustive) {
+
+        public boolean isSolved() {
+            return solution.isPresent();
+        }
+
+        public boolean isUnique() {
+            return exhaustive && solutionCount == 1;
+        }
+    }
+
+    /**
+     * Index arrays of the constraint graph, read without any call in the search loops.
+     */
+    private static final class Geometry {
+        private final int cellCount;
+        private final long allValuesMask;
+        private final int[][] completeUnitCells;
+        private final int[][] cageCells;
+        private final int[] cageSums;
+        private final int[][] cellPeers;
+
+        private Geometry(ConstraintGraph graph) {
+            if (graph.regionSize() > Long.SIZE) {
+                throw new IllegalArgumentException("Size = " + graph.size() + " is too large to be solved");
+            }
+            cellCount = graph.cellCount();
+            allValuesMask = graph.allValuesMask();
+            List<int[]> completeUnits = new ArrayList<>();
+            for (int unit = 0; unit < graph.unitCount(); ++unit) {
+                if (graph.isComplete(unit)) {
+                    completeUnits.add(graph.unitCells(unit));
+                }
+            }
+            completeUnitCells = completeUnits.toArray(int[][]::new);
+            int[] cageUnits = graph.cageUnits();
+            cageCells = new int[cageUnits.length][];
+            cageSums = new int[cageUnits.length];
+            for (int cage = 0; cage < cageUnits.length; ++cage) {
+                cageCells[cage] = graph.unitCells(cageUnits[cage]);
+                cageSums[cage] = graph.cageSum(cageUnits[cage]);
+            }
+            cellPeers = new int[cellCount][];
+            for (int cell = 0; cell < cellCount; ++cell) {
+                cellPeers[cell] = graph.cellPeers(cell);
+            }
+        }
+
+        private State initialState(int[] givens) {
+            State state = new State(new int[cellCount], new long[cellCount]);
+            Arrays.fill(state.candidates, allValuesMask);
+            for (int cell = 0; cell < cellCount; ++cell) {
+                if (givens[cell] != 0 && !assign(state, cell, givens[cell])) {
+                    return null;
+                }
+            }
+            return propagate(state) ? state : null;
+        }
+
+        private boolean assign(State state, int cell, int value) {
+            long valueBit = 1L << (value - 1);
+            if ((state.candidates[cell] & valueBit) == 0) {
+                return false;
+            }
+            state.values[cell] = value;
+            state.candidates[cell] = 0;
+            for (int peer : cellPeers[cell]) {
+                if (state.values[peer] == 0 && (state.candidates[peer] & valueBit) != 0) {
+                    state.candidates[peer] &= ~valueBit;
+                    if (state.candidates[peer] == 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean propagate(State state) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int cell = 0; cell < cellCount; ++cell) {
+                    long candidates = state.candidates[cell];
+                    if (state.values[cell] == 0 && bitCount(candidates) == 1) {
+                        if (!assign(state, cell, numberOfTrailingZeros(candidates) + 1)) {
+                            return false;
+                        }
+                        changed = true;
+                    }
+                }
+                for (int[] unit : completeUnitCells) {
+                    long placed = 0;
+                    long once = 0;
+                    long twice = 0;
+                    for (int cell : unit) {
+                        if (state.values[cell] != 0) {
+                            placed |= 1L << (state.values[cell] - 1);
+                        } else {
+                            twice |= once & state.candidates[cell];
+                            once |= state.candidates[cell];
+                        }
+                    }
+                    if ((placed | once) != allValuesMask) {
+                        return false;
+                    }
+                    long hiddenSingles = once & ~twice & ~placed;
+                    while (hiddenSingles != 0) {
+                        long valueBit = Long.lowestOneBit(hiddenSingles);
+                        hiddenSingles ^= valueBit;
+                        for (int cell : unit) {
+                            if (state.values[cell] == 0 && (state.candidates[cell] & valueBit) != 0) {
+                                if (!assign(state, cell, numberOfTrailingZeros(valueBit) + 1)) {
+                                    return false;
+                                }
+                                changed = true;
+                                break;
+                            }
+                        }
+                    }
+                }
+                for (int cage = 0; cage < cageCells.length; ++cage) {
+                    int boundedCells = boundCage(state, cage);
+                    if (boundedCells < 0) {
+                        return false;
+                    }
+                    changed |= boundedCells > 0;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Removes the candidates of the empty cells of the cage that its sum leaves out.
+         *
+         * @return number of cells whose candidates have been bounded, -1 on contradiction
+         */
+        private int boundCage(State state, int cage) {
+            long placed = 0;
+            long available = 0;
+            int placedSum = 0;
+            int emptyCells = 0;
+            for (int cell : cageCells[cage]) {
+                if (state.values[cell] != 0) {
+                    placed |= 1L << (state.values[cell] - 1);
+                    placedSum += state.values[cell];
+                } else {
+                    available |= state.candidates[cell];
+                    ++emptyCells;
+                }
+            }
+            if (emptyCells == 0) {
+                return placedSum == cageSums[cage] ? 0 : -1;
+            }
+            long cageCandidates = ConstraintGraph.cageCandidates(available & ~placed, cageSums[cage] - placedSum,
+                                                                 emptyCells);
+            int boundedCells = 0;
+            for (int cell : cageCells[cage]) {
+                if (state.values[cell] == 0 && (state.candidates[cell] & ~cageCandidates) != 0) {
+                    state.candidates[cell] &= cageCandidates;
+                    if (state.candidates[cell] == 0) {
+                        return -1;
+                    }
+                    ++boundedCells;
+                }
+            }
+            return boundedCells;
+        }
+
+        private int selectCell(State state) {
+            int selectedCell = -1;
+            int fewestCandidates = Integer.MAX_VALUE;
+            for (int cell = 0; cell < cellCount; ++cell) {
+                if (state.values[cell] == 0) {
+                    int candidateCount = bitCount(state.candidates[cell]);
+                    if (candidateCount < fewestCandidates) {
+                        selectedCell = cell;
+                        fewestCandidates = candidateCount;
+                        if (candidateCount == 2) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return selectedCell;
+        }
+    }
+
+    private record State(int[] values, long[] candidates) {
+        private State copy() {
+            return new State(values.clone(), candidates.clone());
+        }
+    }
+
+    private static final class Frame {
+        private final State state;
+        private final int cell;
+        private long remainingValues;
+
+        private Frame(State state, int cell) {
+            this(state, cell, state.candidates[cell]);
+        }
+
+        private Frame(State state, int cell, long remainingValues) {
+            this.state = state;
+            this.cell = cell;
+            this.remainingValues = remainingValues;
+        }
+    }
+
+    /**
+     * Depth first search with an explicit stack, so that solutions are produced one at a time.
+     */
+    private static final class Search {
+        private final Geometry geometry;
+        private final Random random;
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private int[] pendingSolution;
+        private boolean budgetExceeded;
+        private boolean stopsWhenInterrupted;
+        private long nodes;
+        private long backtracks;
+
+        private Search(Geometry geometry, int[] givens, Random random) {
+            this(geometry, random);
+            State root = geometry.initialState(givens);
+            if (root != null) {
+                pushOrComplete(root);
+            }
+        }
+
+        private Search(Geometry geometry, Random random) {
+            this.geometry = geometry;
+            this.random = random;
+        }
+
+        private int[] next(long maxNodes) {
+            if (pendingSolution != null) {
+                int[] solution = pendingSolution;
+                pendingSolution = null;
+                return solution;
+            }
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (frame.remainingValues == 0) {
+                    stack.pop();
+                    continue;
+                }
+                if (nodes >= maxNodes || stopsWhenInterrupted && Thread.currentThread().isInterrupted()) {
+                    budgetExceeded = true;
+                    return null;
+                }
+                long valueBit = nextValueBit(frame.remainingValues);
+                frame.remainingValues &= ~valueBit;
+                ++nodes;
+                State state = frame.state.copy();
+                if (!geometry.assign(state, frame.cell, numberOfTrailingZeros(valueBit) + 1)
+                    || !geometry.propagate(state)) {
+                    ++backtracks;
+                    continue;
+                }
+                pushOrComplete(state);
+                if (pendingSolution != null) {
+                    int[] solution = pendingSolution;
+                    pendingSolution = null;
+                    return solution;
+                }
+            }
+            return null;
+        }
+
+        private void pushOrComplete(State state) {
+            int cell = geometry.selectCell(state);
+            if (cell == -1) {
+                pendingSolution = state.values;
+            } else {
+                stack.push(new Frame(state, cell));
+            }
+        }
+
+        private long nextValueBit(long remainingValues) {
+            if (random == null) {
+                return Long.lowestOneBit(remainingValues);
+            }
+            int skippedValues = random.nextInt(bitCount(remainingValues));
+            for (int i = 0; i < skippedValues; ++i) {
+                remainingValues &= remainingValues - 1;
+            }
+            return Long.lowestOneBit(remainingValues);
+        }
+
+        /**
+         * Splits the remaining search tree at the lowest frame having at least two unexplored values. The frames above
+         * it and the lower half of its values are moved to the returned search; frame states are never modified, so
+         * both searches can share them.
+         *
+         * @return search of the solutions coming first in depth first order, null when there is nothing to split
+         */
+        private Search splitPrefix() {
+            Frame splitFrame = null;
+            Iterator<Frame> fromBottom = stack.descendingIterator();
+            while (splitFrame == null && fromBottom.hasNext()) {
+                Frame frame = fromBottom.next();
+                if (bitCount(frame.remainingValues) >= 2) {
+                    splitFrame = frame;
+                }
+            }
+            if (splitFrame == null) {
+                return null;
+            }
+            Search prefix = new Search(geometry, random);
+            prefix.pendingSolution = pendingSolution;
+            pendingSolution = null;
+            while (stack.peek() != splitFrame) {
+                prefix.stack.addLast(stack.pop());
+            }
+            long lowerValues = 0;
+            for (int i = bitCount(splitFrame.remainingValues) / 2; i > 0; --i) {
+                long valueBit = Long.lowestOneBit(splitFrame.remainingValues);
+                lowerValues |= valueBit;
+                splitFrame.remainingValues &= ~valueBit;
+            }
+            prefix.stack.addLast(new Frame(splitFrame.state, splitFrame.cell, lowerValues));
+            return prefix;
+        }
+
+        private boolean isExhausted() {
+            return !budgetExceeded && pendingSolution == null && stack.isEmpty();
+        }
+    }
+
+    /**
+     * Spliterator over the solutions found by a search. The size is unknown: as for
+     * {@link Spliterators.AbstractSpliterator}, the estimate is halved at each split to bound the number of splits.
+     */
+    private static final class SolutionSpliterator implements Spliterator<SudokuBoard> {
+        private final ConstraintGraph graph;
+        private final Search search;
+        private long estimatedSize;
+
+        private SolutionSpliterator(ConstraintGraph graph, Search search, long estimatedSize) {
+            this.graph = graph;
+            this.search = search;
+            this.estimatedSize = estimatedSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super SudokuBoard> action) {
+            int[] solution = search.next(Long.MAX_VALUE);
+            if (solution == null) {
+                return false;
+            }
+            action.accept(SudokuBoard.fromValues(graph, solution));
+            return true;
+        }
+
+        @Override
+        public Spliterator<SudokuBoard> trySplit() {
+            Search prefix = search.splitPrefix();
+            if (prefix == null) {
+                return null;
+            }
+            estimatedSize >>>= 1;
+            return new SolutionSpliterator(graph, prefix, estimatedSize);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+    }
+}
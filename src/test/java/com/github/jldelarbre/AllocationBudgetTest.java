@@ -0,0 +1,74 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of the hot paths, in bytes per operation, measured with the allocation counter of the current
+ * thread after a warm-up (so that the measured code runs compiled, as in the GUI or the server).<br>
+ * A "zero byte" budget is checked as an average below one byte: measuring allocates a few bytes itself.
+ */
+public class AllocationBudgetTest {
+
+    private static final String HARD_PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final int WARM_UP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+
+    private SudokuBoard board;
+
+    @BeforeEach
+    void checkMeasurable() {
+        assumeTrue(SudokuMetrics.currentThreadAllocatedBytes() >= 0, "Thread allocation is not measured by this JVM");
+        board = SudokuBoard.parse(HARD_PUZZLE);
+    }
+
+    @Test
+    void warmCandidateQueriesShallNotAllocate() {
+        SudokuBoard.Cell cell = board.cell(1, 2);
+
+        assertBudget(0, () -> cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(0));
+        assertBudget(0, () -> cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(0));
+        assertBudget(0, () -> cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(
+                SudokuBoard.USED_CONSTRAINT_LEVEL));
+        assertBudget(0, () -> board.box(1, 1).candidatePositionsMask(3));
+    }
+
+    @Test
+    void regionCellsShallNotAllocate() {
+        assertBudget(0, () -> board.row(3).cells());
+        assertBudget(0, () -> board.column(3).cells());
+        assertBudget(0, () -> board.box(2, 3).cells());
+    }
+
+    @Test
+    void editsShallStayWithinBudget() {
+        assertBudget(8 * 1024, () -> board.set(5, 1, 2));
+        assertBudget(8 * 1024, () -> board.clear(1, 1));
+    }
+
+    @Test
+    void conflictTrackerEditsShallOnlyCopyTheEditedUnits() {
+        // A whole copy of the 625 values and of the 75 x 25 counts of a 25x25 board would take about 10 KB
+        ConflictTracker tracker = ConflictTracker.of(ConstraintGraph.classic(5), new int[625]);
+
+        assertBudget(2 * 1024, () -> tracker.withValue(312, 7));
+    }
+
+    private static void assertBudget(long budgetBytes, Runnable operation) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; ++i) {
+            operation.run();
+        }
+        long allocatedBytesBefore = SudokuMetrics.currentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; ++i) {
+            operation.run();
+        }
+        double bytesPerOperation =
+                (SudokuMetrics.currentThreadAllocatedBytes() - allocatedBytesBefore) / (double) MEASURED_ITERATIONS;
+        assertTrue(bytesPerOperation < Math.max(budgetBytes, 1),
+                   "Allocated " + bytesPerOperation + " bytes per operation, budget is " + budgetBytes);
+    }
+}
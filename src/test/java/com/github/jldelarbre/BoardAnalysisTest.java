@@ -0,0 +1,132 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import static com.github.jldelarbre.SudokuBoard.USED_CONSTRAINT_LEVEL;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BoardAnalysisTest {
+
+    private static final String HARD_PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    @Test
+    void shallMatchBoardAnalysisOfPuzzle() {
+        assertSameAsBoard(SudokuBoard.parse(HARD_PUZZLE));
+    }
+
+    @Test
+    void shallMatchBoardAnalysisOfErroneousBoard() {
+        SudokuBoard board = SudokuBoard.parse(HARD_PUZZLE)
+                .set(8, 1, 9)
+                .set(3, 2, 1)
+                .set(5, 4, 4);
+
+        assertSameAsBoard(board);
+    }
+
+    @Test
+    void shallMatchBoardAnalysisOfLargeBoard() {
+        SudokuBoard board = SudokuBoard.create(4)
+                .set(1, 1, 1)
+                .set(2, 1, 5)
+                .set(16, 7, 3)
+                .set(1, 16, 16);
+
+        assertSameAsBoard(board);
+    }
+
+    @Test
+    void shallMatchBoardAnalysisOfVariants() {
+        ConstraintGraph variant = ConstraintGraph.builder(3)
+                .withDiagonals()
+                .withWindows()
+                .withCage(4, 1, 2)
+                .withCage(23, 78, 79, 80)
+                .build();
+        ConstraintGraph jigsaw = ConstraintGraph.builder(3).withJigsaw(ConstraintGraphTest.shiftedBoxes()).build();
+
+        assertSameAsBoard(SudokuBoard.create(variant).set(1, 1, 1).set(9, 5, 5).set(9, 3, 3).set(9, 9, 9));
+        assertSameAsBoard(SudokuBoard.parse(HARD_PUZZLE, jigsaw));
+    }
+
+    @Test
+    void costlyAnalysisShallBeLimitedToScope() {
+        SudokuBoard board = SudokuBoard.parse(HARD_PUZZLE).set(8, 1, 9);
+        BitSet rows = new BitSet();
+        rows.set(1);
+        BoardAnalysis.Scope scope = new BoardAnalysis.Scope(1, 1, 1, 3, rows, new BitSet(), new BitSet(), true);
+
+        BoardAnalysis analysis = BoardAnalysis.compute(board, scope).orElseThrow();
+
+        assertNotEquals(0, analysis.candidateValuesMask(1, 2));
+        assertEquals(0, analysis.candidateValuesMask(1, 4));
+        assertEquals(0, analysis.columnImpossibleToFillValuesMask(1));
+        assertEquals(BoardAnalysis.toMask(board.row(1).getImpossibleToFillValueErrors()),
+                     analysis.rowImpossibleToFillValuesMask(1));
+        assertTrue(analysis.isDuplicateValue(1, 9));
+        assertEquals(BoardAnalysis.toMask(board.cell(5, 5).getPossibleValuesThatDoNotProduceDuplicate()),
+                     analysis.possibleValuesMask(5, 5));
+    }
+
+    @Test
+    void parallelAnalysisShallNotFillCellsOutOfScope() {
+        // 208 cells in scope: enough for the parallel fill, the 48 cells of columns 14 to 16 are out of scope
+        SudokuBoard board = SudokuBoard.create(4);
+        BoardAnalysis.Scope scope = new BoardAnalysis.Scope(1, 16, 1, 13, new BitSet(), new BitSet(), new BitSet(), true);
+        assumeTrue(SudokuMetrics.ENABLED && BoardAnalysis.PARALLELISM_THRESHOLD <= 208);
+        SudokuMetrics.LevelCounter misses = SudokuMetrics.LevelCounter.UNIQUE_POSITION_CACHE_MISSES;
+        long missesBefore = misses.sum(SudokuBoard.USED_CONSTRAINT_LEVEL);
+
+        BoardAnalysis.compute(board, scope).orElseThrow();
+
+        assertEquals(208, misses.sum(SudokuBoard.USED_CONSTRAINT_LEVEL) - missesBefore);
+    }
+
+    private static void assertSameAsBoard(SudokuBoard board) {
+        BoardAnalysis analysis = BoardAnalysis.of(board);
+
+        Set<SudokuBoard.Cell> unfillableCells = board.unfillableErroneousCells();
+        for (SudokuBoard.Cell cell : board.cells()) {
+            int row = cell.rowIndex();
+            int column = cell.columnIndex();
+            assertEquals(cell.value().orElse(0), analysis.value(row, column));
+            boolean duplicateValue = board.row(row).getDuplicateValuesErrors().contains(cell)
+                                     || board.column(column).getDuplicateValuesErrors().contains(cell)
+                                     || cell.box().getDuplicateValuesErrors().contains(cell)
+                                     || board.variantRegions().stream()
+                                             .anyMatch(region -> region.getDuplicateValuesErrors().contains(cell));
+            assertEquals(duplicateValue, analysis.isDuplicateValue(row, column));
+            assertEquals(cell.getPossibleValuesThatDoNotProduceDuplicate(),
+                         BoardAnalysis.toValues(analysis.possibleValuesMask(row, column)));
+            assertEquals(cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(),
+                         BoardAnalysis.toValues(analysis.uniquePositionValuesMask(row, column)));
+            if (cell.value().isEmpty()) {
+                assertEquals(cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(USED_CONSTRAINT_LEVEL),
+                             BoardAnalysis.toValues(analysis.candidateValuesMask(row, column)));
+            }
+            assertEquals(unfillableCells.contains(cell), analysis.isUnfillable(row, column));
+        }
+        for (int i = 1; i <= board.regionSize(); ++i) {
+            assertEquals(board.row(i).missingValues(), BoardAnalysis.toValues(analysis.rowMissingValuesMask(i)));
+            assertEquals(board.column(i).missingValues(), BoardAnalysis.toValues(analysis.columnMissingValuesMask(i)));
+            assertEquals(board.row(i).getImpossibleToFillValueErrors(),
+                         BoardAnalysis.toValues(analysis.rowImpossibleToFillValuesMask(i)));
+            assertEquals(board.column(i).getImpossibleToFillValueErrors(),
+                         BoardAnalysis.toValues(analysis.columnImpossibleToFillValuesMask(i)));
+        }
+        for (int boxRow = 1; boxRow <= board.size(); ++boxRow) {
+            for (int boxColumn = 1; boxColumn <= board.size(); ++boxColumn) {
+                SudokuBoard.Box box = board.box(boxRow, boxColumn);
+                assertEquals(box.missingValues(),
+                             BoardAnalysis.toValues(analysis.boxMissingValuesMask(boxRow, boxColumn)));
+                assertEquals(box.getImpossibleToFillValueErrors(),
+                             BoardAnalysis.toValues(analysis.boxImpossibleToFillValuesMask(boxRow, boxColumn)));
+            }
+        }
+    }
+}
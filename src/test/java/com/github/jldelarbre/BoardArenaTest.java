@@ -0,0 +1,73 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardArenaTest {
+
+    private static final String HARD_PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    @Test
+    void shallReadAppendedBoards() {
+        BoardArena arena = new BoardArena(3);
+        SudokuBoard puzzle = SudokuBoard.parse(HARD_PUZZLE);
+
+        int index = arena.append(puzzle);
+
+        assertEquals(0, index);
+        assertEquals(1, arena.boardCount());
+        BoardArena.View view = arena.view(0);
+        assertEquals(8, view.value(1, 1));
+        assertEquals(0, view.value(1, 2));
+        assertEquals(HARD_PUZZLE.replace('0', '.'), view.toLine());
+        assertEquals(puzzle.toLine(), view.toBoard().toLine());
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.view(1));
+    }
+
+    @Test
+    void bulkAppendShallSpanChunks() {
+        Random random = new Random(3);
+        List<SudokuBoard> boards = new ArrayList<>();
+        for (int i = 0; i < 14_000; ++i) {
+            boards.add(SudokuBoard.create(3).set(random.nextInt(9) + 1, random.nextInt(9) + 1, random.nextInt(9) + 1));
+        }
+        BoardArena arena = new BoardArena(3);
+        arena.append(boards.getFirst());
+
+        arena.appendPacked(GridValidator.pack(boards), 81, boards.size() - 1);
+
+        assertEquals(boards.size(), arena.boardCount());
+        arena.forEach(view -> assertEquals(boards.get(view.index()).toLine(), view.toLine()));
+        assertArrayEquals(GridValidator.pack(boards.subList(12_000, 14_000)), arena.copyPacked(12_000, 2000));
+    }
+
+    @Test
+    void packedBoardsShallBeValidated() {
+        SudokuBoard solution = SudokuSolver.solve(SudokuBoard.parse(HARD_PUZZLE)).solution().orElseThrow();
+        BoardArena arena = new BoardArena(3);
+        arena.append(solution);
+        arena.append(solution.clear(1, 1));
+
+        long[] validity = GridValidator.validate(3, arena.copyPacked(0, arena.boardCount()));
+
+        assertTrue(GridValidator.isValid(validity, 0));
+        assertFalse(GridValidator.isValid(validity, 1));
+    }
+
+    @Test
+    void shallRejectInvalidInput() {
+        BoardArena arena = new BoardArena(2);
+
+        assertThrows(IllegalArgumentException.class, () -> arena.append(SudokuBoard.create(3)));
+        assertThrows(IllegalArgumentException.class, () -> arena.appendPacked(new byte[] {5, 0, 0, 0, 0, 0, 0, 0,
+                                                                                        0, 0, 0, 0, 0, 0, 0, 0}, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.appendPacked(new byte[16], 0, 2));
+        assertEquals(0, arena.boardCount());
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstraintGraphTest {
+
+    @Test
+    void classicGraphShallHoldRowsColumnsAndBoxes() {
+        ConstraintGraph graph = ConstraintGraph.classic(3);
+
+        assertSame(graph, ConstraintGraph.classic(3));
+        assertTrue(graph.isClassic());
+        assertEquals(27, graph.unitCount());
+        assertEquals(ConstraintGraph.UnitKind.COLUMN, graph.unitKind(9));
+        assertArrayEquals(new int[] {0, 9, 18}, graph.cellUnits(0));
+        assertArrayEquals(new int[] {30, 31, 32, 39, 40, 41, 48, 49, 50}, graph.unitCells(22));
+        assertEquals(20, graph.cellPeers(40).length);
+        assertEquals(4, graph.boxOf(40));
+    }
+
+    @Test
+    void variantUnitsShallBeAddedAfterBoxes() {
+        ConstraintGraph graph = ConstraintGraph.builder(3).withDiagonals().withWindows().withCage(3, 0, 1).build();
+
+        assertFalse(graph.isClassic());
+        assertEquals(27 + 2 + 4 + 1, graph.unitCount());
+        assertEquals(ConstraintGraph.UnitKind.DIAGONAL, graph.unitKind(27));
+        assertArrayEquals(new int[] {10, 11, 12, 19, 20, 21, 28, 29, 30}, graph.unitCells(29));
+        assertEquals(ConstraintGraph.UnitKind.CAGE, graph.unitKind(33));
+        assertEquals(3, graph.cageSum(33));
+        assertFalse(graph.isComplete(33));
+        assertArrayEquals(new int[] {0, 9, 18, 27, 33}, graph.cellUnits(0));
+        // Center cell: row, column, box and both diagonals
+        assertEquals(5, graph.cellUnits(40).length);
+        assertEquals(20 + 12, graph.cellPeers(40).length);
+    }
+
+    @Test
+    void jigsawRegionsShallReplaceBoxes() {
+        ConstraintGraph graph = ConstraintGraph.builder(3).withJigsaw(shiftedBoxes()).build();
+
+        assertEquals(27, graph.unitCount());
+        assertEquals(ConstraintGraph.UnitKind.JIGSAW, graph.unitKind(18));
+        assertArrayEquals(new int[] {28, 29, 30, 37, 38, 39, 46, 47, 48}, graph.unitCells(21));
+        assertEquals(5, graph.boxOf(35));
+        assertEquals(3, graph.boxOf(28));
+        assertEquals(5, graph.boxOf(27));
+    }
+
+    @Test
+    void invalidUnitsShallBeRejected() {
+        ConstraintGraph.Builder builder = ConstraintGraph.builder(3);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.withCage(2, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> builder.withCage(5, 0, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> builder.withCage(5, 0, 81));
+        assertThrows(IllegalArgumentException.class, () -> builder.withJigsaw(new int[81]));
+    }
+
+    @Test
+    void cageCandidatesShallBeBoundedBySum() {
+        long allValues = 0b1_1111_1111;
+
+        // Two cells adding up to 3: 1 + 2
+        assertEquals(0b11, ConstraintGraph.cageCandidates(allValues, 3, 2));
+        // Two cells adding up to 17: 8 + 9
+        assertEquals(0b1_1000_0000, ConstraintGraph.cageCandidates(allValues, 17, 2));
+        // One cell left
+        assertEquals(0b1_0000, ConstraintGraph.cageCandidates(allValues, 5, 1));
+        // 1 and 2 placed, 3 cells left for 15: not 9, the other cells would add up to 6, less than 3 + 4
+        assertEquals(0b0_1111_1100, ConstraintGraph.cageCandidates(allValues & ~0b11, 15, 3));
+    }
+
+    /**
+     * Boxes of each band shifted right by the band index, wrapping around.
+     */
+    static int[] shiftedBoxes() {
+        int[] regionOfCell = new int[81];
+        for (int cell = 0; cell < 81; ++cell) {
+            int band = cell / 27;
+            int column = cell % 9;
+            regionOfCell[cell] = band * 3 + ((column + 9 - band) % 9) / 3;
+        }
+        return regionOfCell;
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Performance regression suite, run by the {@code performance} profile only: {@code mvn -P performance test}.<br>
+ * Each puzzle of the corpus is solved (solution count up to 2) and rated; search nodes, deductions and times are
+ * compared with {@code corpus/baseline.txt}. Counts shall not exceed the baseline by more than
+ * {@code sudoku.perf.threshold} (default 10%), the total time by more than {@code sudoku.perf.timeThreshold} (default
+ * 100%, times depend on the machine).<br>
+ * {@code -Dsudoku.perf.writeBaseline=src/test/resources/corpus/baseline.txt} records a new baseline instead.
+ */
+@Tag("performance")
+public class CorpusPerformanceTest {
+
+    private static final List<String> CORPUS_FILES = List.of("hard-9x9.txt", "large.txt");
+    private static final String BASELINE_FILE = "baseline.txt";
+    private static final int TIMED_RUNS = 3;
+
+    private final double threshold = Double.parseDouble(System.getProperty("sudoku.perf.threshold", "0.10"));
+    private final double timeThreshold = Double.parseDouble(System.getProperty("sudoku.perf.timeThreshold", "1.0"));
+
+    @Test
+    void corpusShallNotRegress() throws IOException {
+        Map<String, Measure> measures = new LinkedHashMap<>();
+        for (String corpusFile : CORPUS_FILES) {
+            List<String> puzzles = readLines(corpusFile);
+            for (int i = 0; i < puzzles.size(); ++i) {
+                measures.put(corpusFile + ":" + (i + 1), measure(puzzles.get(i)));
+            }
+        }
+        measures.forEach((id, measure) -> System.out.println(id + " " + measure.toLine()));
+
+        String baselineOutput = System.getProperty("sudoku.perf.writeBaseline");
+        if (baselineOutput != null) {
+            writeBaseline(Path.of(baselineOutput), measures);
+            return;
+        }
+
+        Map<String, Measure> baseline = readBaseline();
+        List<String> regressions = new ArrayList<>();
+        double totalMillis = 0;
+        double baselineTotalMillis = 0;
+        for (Map.Entry<String, Measure> entry : measures.entrySet()) {
+            Measure expected = baseline.get(entry.getKey());
+            assertNotNull(expected, "No baseline for " + entry.getKey());
+            Measure actual = entry.getValue();
+            checkCount(regressions, entry.getKey() + " solver nodes", actual.solverNodes, expected.solverNodes);
+            checkCount(regressions, entry.getKey() + " rater search nodes",
+                       actual.raterSearchNodes, expected.raterSearchNodes);
+            if (actual.deductions < expected.deductions) {
+                regressions.add(entry.getKey() + " deductions: " + actual.deductions + " < " + expected.deductions);
+            }
+            totalMillis += actual.solveMillis + actual.rateMillis;
+            baselineTotalMillis += expected.solveMillis + expected.rateMillis;
+        }
+        if (totalMillis > baselineTotalMillis * (1 + timeThreshold)) {
+            regressions.add(String.format(Locale.ROOT, "total time: %.1f ms > %.1f ms", totalMillis,
+                                          baselineTotalMillis));
+        }
+        assertTrue(regressions.isEmpty(), "Performance regressions:\n" + String.join("\n", regressions));
+    }
+
+    private void checkCount(List<String> regressions, String name, long actual, long expected) {
+        if (actual > expected * (1 + threshold)) {
+            regressions.add(name + ": " + actual + " > " + expected);
+        }
+    }
+
+    /**
+     * Times are the best of a few runs, each on a new board since the board memoizes its analysis.
+     */
+    private static Measure measure(String puzzle) {
+        long solverNodes = 0;
+        long solveNanos = Long.MAX_VALUE;
+        SudokuRater.Rating rating = null;
+        long rateNanos = Long.MAX_VALUE;
+        for (int run = 0; run < TIMED_RUNS; ++run) {
+            long start = System.nanoTime();
+            SudokuSolver.Result result = SudokuSolver.countSolutions(SudokuBoard.parse(puzzle), 2);
+            long solved = System.nanoTime();
+            rating = SudokuRater.rate(SudokuBoard.parse(puzzle));
+            long rated = System.nanoTime();
+            assertTrue(result.isUnique(), "Corpus puzzles shall have a unique solution: " + puzzle);
+            solverNodes = result.nodes();
+            solveNanos = Math.min(solveNanos, solved - start);
+            rateNanos = Math.min(rateNanos, rated - solved);
+        }
+        return new Measure(solverNodes, rating.deductions(), rating.searchNodes(), solveNanos / 1e6, rateNanos / 1e6);
+    }
+
+    private List<String> readLines(String corpusFile) throws IOException {
+        InputStream stream = getClass().getResourceAsStream("/corpus/" + corpusFile);
+        assertNotNull(stream, "Missing corpus file " + corpusFile);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String content = line.strip();
+                if (!content.isEmpty() && !content.startsWith("#")) {
+                    lines.add(content);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private Map<String, Measure> readBaseline() throws IOException {
+        Map<String, Measure> baseline = new LinkedHashMap<>();
+        for (String line : readLines(BASELINE_FILE)) {
+            String[] fields = line.split("\\s+");
+            baseline.put(fields[0], Measure.parse(fields));
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path path, Map<String, Measure> measures) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            writer.println("# puzzle solver-nodes deductions rater-search-nodes solve-ms rate-ms");
+            measures.forEach((id, measure) -> writer.println(id + " " + measure.toLine()));
+        }
+    }
+
+    private record Measure(long solverNodes, int deductions, long raterSearchNodes, double solveMillis,
+                           double rateMillis) {
+
+        private static Measure parse(String[] fields) {
+            return new Measure(Long.parseLong(fields[1]), Integer.parseInt(fields[2]), Long.parseLong(fields[3]),
+                               Double.parseDouble(fields[4]), Double.parseDouble(fields[5]));
+        }
+
+        private String toLine() {
+            return String.format(Locale.ROOT, "%d %d %d %.3f %.3f", solverNodes, deductions, raterSearchNodes,
+                                 solveMillis, rateMillis);
+        }
+    }
+}
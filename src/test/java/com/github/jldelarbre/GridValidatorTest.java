@@ -0,0 +1,78 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridValidatorTest {
+
+    private static final String HARD_PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    @Test
+    void solvedGridShallBeValid() {
+        SudokuBoard solution = SudokuSolver.solve(SudokuBoard.parse(HARD_PUZZLE)).solution().orElseThrow();
+
+        long[] validity = GridValidator.validate(3, GridValidator.pack(List.of(solution)));
+
+        assertEquals(1, validity.length);
+        assertTrue(GridValidator.isValid(validity, 0));
+    }
+
+    @Test
+    void shallFindInvalidGridsInBatch() {
+        SudokuBoard solution = SudokuSolver.solve(SudokuBoard.parse(HARD_PUZZLE)).solution().orElseThrow();
+        int firstValue = solution.cell(1, 1).value().orElseThrow();
+        int secondValue = solution.cell(1, 2).value().orElseThrow();
+        List<SudokuBoard> boards = new ArrayList<>();
+        for (int i = 0; i < 70; ++i) {
+            boards.add(solution);
+        }
+        boards.set(3, solution.set(secondValue, 1, 1));
+        boards.set(10, solution.clear(5, 5));
+        // Swapping two values of a row keeps the row valid but breaks two columns
+        boards.set(65, solution.set(secondValue, 1, 1).set(firstValue, 1, 2));
+        byte[] grids = GridValidator.pack(boards);
+        grids[20 * 81 + 40] = 10;
+
+        long[] validity = GridValidator.validate(3, grids);
+
+        assertEquals(2, validity.length);
+        for (int i = 0; i < boards.size(); ++i) {
+            assertEquals(i != 3 && i != 10 && i != 20 && i != 65, GridValidator.isValid(validity, i), "grid " + i);
+        }
+    }
+
+    @Test
+    void shallMatchConflictTrackingOfBoards() {
+        Random random = new Random(42);
+        SudokuBoard solution = SudokuSolver.solve(SudokuBoard.create(2)).solution().orElseThrow();
+        List<SudokuBoard> boards = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            boards.add(solution.set(random.nextInt(4) + 1, random.nextInt(4) + 1, random.nextInt(4) + 1));
+        }
+
+        long[] validity = GridValidator.validate(2, GridValidator.pack(boards));
+
+        for (int i = 0; i < boards.size(); ++i) {
+            assertEquals(!boards.get(i).hasConflicts(), GridValidator.isValid(validity, i));
+        }
+    }
+
+    @Test
+    void shallValidateSubRangeOfBatch() {
+        SudokuBoard solution = SudokuSolver.solve(SudokuBoard.parse(HARD_PUZZLE)).solution().orElseThrow();
+        byte[] grids = GridValidator.pack(List.of(solution.clear(1, 1), solution, solution));
+
+        long[] validity = GridValidator.validate(3, grids, 81, 2);
+
+        assertTrue(GridValidator.isValid(validity, 0));
+        assertTrue(GridValidator.isValid(validity, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> GridValidator.validate(3, grids, 81, 3));
+        assertThrows(IllegalArgumentException.class, () -> GridValidator.validate(3, new byte[80]));
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void shallComputeOnlyOnMiss() {
+        ResultCache cache = new ResultCache(1 << 20);
+        int[] values = {1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2};
+
+        assertEquals("result", cache.get("solve", values, this::compute));
+        assertEquals("result", cache.get("solve", values.clone(), this::compute));
+
+        assertEquals(1, computations.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void keyShallIncludeOperationAndValues() {
+        ResultCache cache = new ResultCache(1 << 20);
+        int[] values = new int[16];
+        int[] otherValues = new int[16];
+        otherValues[5] = 3;
+
+        cache.get("solve", values, this::compute);
+        cache.get("validate", values, this::compute);
+        cache.get("solve", otherValues, this::compute);
+
+        assertEquals(3, computations.get());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void shallEvictLeastRecentlyUsedEntriesBeyondBound() {
+        ResultCache cache = new ResultCache(16 * 1000);
+        for (int i = 0; i < 1000; ++i) {
+            cache.get("solve", new int[] {i % 10, i / 10 % 10, i / 100, 0}, this::compute);
+        }
+
+        assertTrue(cache.weightedBytes() <= 16 * 1000);
+        assertTrue(cache.evictions() > 0);
+        assertEquals(1000, cache.misses());
+    }
+
+    @Test
+    void recentlyReadEntryShallOutliveOlderUntouchedEntries() {
+        ResultCache cache = new ResultCache(16 * 1000);
+        int[] readValues = {0, 0, 0, 0};
+        int[] untouchedValues = {1, 0, 0, 0};
+        cache.get("solve", readValues, this::compute);
+        cache.get("solve", untouchedValues, this::compute);
+
+        // Every segment overflows many times, the read entry being read again after each insertion: it shall never
+        // be computed again, while the untouched one shall have been evicted
+        for (int i = 2; i < 1000; ++i) {
+            cache.get("solve", new int[] {i % 10, i / 10 % 10, i / 100, 0}, this::compute);
+            cache.get("solve", readValues, this::compute);
+        }
+        cache.get("solve", untouchedValues, this::compute);
+
+        assertTrue(cache.evictions() > 0);
+        assertEquals(998, cache.hits());
+        assertEquals(1001, cache.misses());
+        assertEquals(1001, computations.get());
+    }
+
+    @Test
+    void zeroBoundShallDisableCache() {
+        ResultCache cache = new ResultCache(0);
+        int[] values = new int[16];
+
+        cache.get("solve", values, this::compute);
+        cache.get("solve", values, this::compute);
+
+        assertEquals(2, computations.get());
+        assertEquals(0, cache.weightedBytes());
+    }
+
+    private String compute() {
+        computations.incrementAndGet();
+        return "result";
+    }
+}
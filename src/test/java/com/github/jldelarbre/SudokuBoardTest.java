@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableSortedSet;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
 import static java.util.Collections.shuffle;
@@ -336,6 +337,84 @@ public class SudokuBoardTest {
         assertEquals(shuffledBoxColumns.getFirst(), cell2.box().boxColumnIndex());
     }
 
+    @Test
+    void conflictsShallFollowCellEdits() {
+        SudokuBoard board = startBoard
+                .set(5, 1, 1)
+                .set(5, 1, 9)
+                .set(5, 2, 2);
+
+        assertTrue(board.hasConflicts());
+        assertEquals(Set.of(board.cell(1, 1), board.cell(1, 9), board.cell(2, 2)), board.conflictingCells());
+
+        SudokuBoard clearedBoard = board.clear(1, 1);
+
+        assertFalse(clearedBoard.hasConflicts());
+        assertTrue(clearedBoard.conflictingCells().isEmpty());
+
+        SudokuBoard changedBoard = board.set(7, 1, 9);
+
+        assertTrue(changedBoard.hasConflicts());
+        assertEquals(Set.of(changedBoard.cell(1, 1), changedBoard.cell(2, 2)), changedBoard.conflictingCells());
+        assertTrue(changedBoard.row(1).getDuplicateValuesErrors().isEmpty());
+    }
+
+    @Test
+    void conflictsShallBeFoundInParsedBoard() {
+        SudokuBoard board = SudokuBoard.parse(
+                "11..............................................................................9");
+
+        assertTrue(board.hasConflicts());
+        assertEquals(Set.of(board.cell(1, 1), board.cell(1, 2)), board.conflictingCells());
+        assertFalse(board.clear(1, 2).hasConflicts());
+    }
+
+    @Test
+    void checkCandidatePositionsMasks() {
+        assertEquals((1L << regionSize) - 1, startBoard.row(1).candidatePositionsMask(5));
+
+        SudokuBoard board = startBoard
+                .set(2, 1, 1)
+                .set(3, 1, 4)
+                .set(1, 2, 1)
+                .set(1, 3, 9)
+                .set(1, 4, 5)
+                .set(1, 7, 6);
+
+        assertEquals(0, board.row(1).candidatePositionsMask(1));
+        assertEquals(0, board.row(1).candidatePositionsMask(2));
+        // Value 3 is used in row 1 and cell (2, 1) is filled: positions 4 to 8 are left in box (1, 1)
+        assertEquals(0b111_110_000L, board.box(1, 1).candidatePositionsMask(3, 0));
+    }
+
+    @Test
+    void parallelCandidatesShallMatchSequentialOnes() {
+        String line = SudokuSolver.generate(4, new Random(7)).toLine();
+        SudokuBoard sequentialBoard = SudokuBoard.parse(line);
+        SudokuBoard parallelBoard = SudokuBoard.parse(line);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertTrue(parallelBoard.computeCandidatesInParallel(SudokuBoard.USED_CONSTRAINT_LEVEL, pool, 0));
+        } finally {
+            pool.shutdown();
+        }
+
+        for (SudokuBoard.Cell cell : sequentialBoard.cells()) {
+            SudokuBoard.Cell parallelCell = parallelBoard.cell(cell.rowIndex(), cell.columnIndex());
+            for (int level = 0; level <= SudokuBoard.USED_CONSTRAINT_LEVEL; ++level) {
+                assertEquals(cell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(level),
+                             parallelCell.getRemainingCandidateValuesAfterEliminationFromNeighboringCells(level));
+                assertEquals(cell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(level),
+                             parallelCell.getRemainingCandidateValuesUniquePositionValueExtractedIfAny(level));
+            }
+        }
+        for (int i = 1; i <= sequentialBoard.regionSize(); ++i) {
+            assertEquals(sequentialBoard.row(i).getImpossibleToFillValueErrors(),
+                         parallelBoard.row(i).getImpossibleToFillValueErrors());
+        }
+    }
+
     @Test
     void checkImpossibleToFillValueInRowErrors() {
         SudokuBoard board = startBoard
@@ -668,6 +747,70 @@ public class SudokuBoardTest {
         assertThrows(IllegalArgumentException.class, () -> startBoard.set(maxValue + 1, 1, 1));
     }
 
+    @Test
+    void shouldParseLine() {
+        String line = "1.3" + ".".repeat(77) + "9";
+
+        SudokuBoard board = SudokuBoard.parse(line);
+
+        assertEquals(size, board.size());
+        assertEquals(Optional.of(1), board.cell(1, 1).value());
+        assertEquals(Optional.empty(), board.cell(1, 2).value());
+        assertEquals(Optional.of(3), board.cell(1, 3).value());
+        assertEquals(Optional.of(9), board.cell(9, 9).value());
+        assertEquals(line, board.toLine());
+    }
+
+    @Test
+    void shouldParseLineOfLargeBoard() {
+        SudokuBoard board = SudokuBoard.parse("0G" + ".".repeat(254));
+
+        assertEquals(4, board.size());
+        assertEquals(Optional.empty(), board.cell(1, 1).value());
+        assertEquals(Optional.of(16), board.cell(1, 2).value());
+        assertEquals(".G" + ".".repeat(254), board.toLine());
+    }
+
+    @Test
+    void variantRegionsShallConstrainCells() {
+        ConstraintGraph variant = ConstraintGraph.builder(3).withDiagonals().withCage(3, 0, 1).build();
+        SudokuBoard board = SudokuBoard.create(variant);
+
+        assertEquals(3, board.variantRegions().size());
+        assertEquals(ConstraintGraph.UnitKind.CAGE, board.variantRegions().get(2).kind());
+        assertEquals(ImmutableSortedSet.of(1, 2), board.cell(1, 2).getPossibleValuesThatDoNotProduceDuplicate());
+        SudokuBoard edited = board.set(1, 1, 1);
+        assertEquals(ImmutableSortedSet.of(2), edited.cell(1, 2).getPossibleValuesThatDoNotProduceDuplicate());
+        assertFalse(edited.cell(9, 9).getPossibleValuesThatDoNotProduceDuplicate().contains(1));
+        assertTrue(edited.cell(9, 8).getPossibleValuesThatDoNotProduceDuplicate().contains(1));
+        assertTrue(edited.set(1, 5, 5).hasConflicts());
+        assertFalse(edited.set(1, 5, 6).hasConflicts());
+        SudokuBoard duplicated = edited.set(1, 1, 2);
+        assertEquals(Set.of(duplicated.cell(1, 1), duplicated.cell(1, 2)), duplicated.conflictingCells());
+    }
+
+    @Test
+    void jigsawRegionsShallReplaceBoxes() {
+        ConstraintGraph jigsaw = ConstraintGraph.builder(3).withJigsaw(ConstraintGraphTest.shiftedBoxes()).build();
+        SudokuBoard board = SudokuBoard.create(jigsaw).set(7, 4, 1);
+
+        SudokuBoard.Box region = board.cell(4, 9).box();
+
+        assertSame(region, board.cell(4, 1).box());
+        assertEquals(2, region.boxRowIndex());
+        assertEquals(3, region.boxColumnIndex());
+        assertTrue(region.cells().contains(board.cell(6, 8)));
+        assertFalse(board.cell(6, 8).getPossibleValuesThatDoNotProduceDuplicate().contains(7));
+        assertTrue(board.cell(6, 3).getPossibleValuesThatDoNotProduceDuplicate().contains(7));
+    }
+
+    @Test
+    void shouldRejectInvalidLine() {
+        assertThrows(IllegalArgumentException.class, () -> SudokuBoard.parse("123"));
+        assertThrows(IllegalArgumentException.class, () -> SudokuBoard.parse("A" + ".".repeat(80)));
+        assertThrows(IllegalArgumentException.class, () -> SudokuBoard.parse("?" + ".".repeat(80)));
+    }
+
     private List<Integer> shuffledBoxRows() {
         List<Integer> shuffledIndexes = rangeClosed(1, size).boxed().collect(toList());
         shuffle(shuffledIndexes);
@@ -0,0 +1,37 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuCliTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final SudokuCli cli = new SudokuCli(new PrintStream(out, true, StandardCharsets.UTF_8),
+                                                new PrintStream(err, true, StandardCharsets.UTF_8));
+
+    @Test
+    void shallGenerateParsablePuzzles() {
+        assertEquals(0, cli.run(new String[] {"generate", "--size", "2", "--count", "2", "--seed", "1"}));
+
+        String[] puzzles = out.toString(StandardCharsets.UTF_8).strip().split("\n");
+        assertEquals(2, puzzles.length);
+        for (String puzzle : puzzles) {
+            assertEquals(2, SudokuBoard.parse(puzzle).size());
+        }
+    }
+
+    @Test
+    void sizesBeyondLineFormatShallBeRejected() {
+        assertEquals(2, cli.run(new String[] {"generate", "--size", "6"}));
+        assertEquals(2, cli.run(new String[] {"generate", "--size", "0"}));
+
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Option --size shall be in [1 5]\nUsage:"));
+    }
+}
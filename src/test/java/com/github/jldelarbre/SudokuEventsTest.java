@@ -0,0 +1,72 @@
+package com.github.jldelarbre;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuEventsTest {
+
+    private static final String PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    @Test
+    void enabledEventsShallBeRecorded() throws Exception {
+        List<RecordedEvent> events = record(true, () -> {
+            SudokuSolver.countSolutions(SudokuBoard.parse(PUZZLE), 2);
+            BoardAnalysis.of(SudokuBoard.parse(PUZZLE).set(8, 1, 2));
+        });
+
+        RecordedEvent solverRun = find(events, "SolverRun");
+        assertEquals(3, solverRun.getInt("size"));
+        assertEquals("unique", solverRun.getString("outcome"));
+        assertEquals(1, solverRun.getLong("solutionCount"));
+        assertTrue(solverRun.getLong("nodes") > 0);
+        assertFalse(solverRun.getDuration().isNegative());
+        assertEquals(2, find(events, "DuplicateCheck").getInt("duplicateCells"));
+        assertEquals(SudokuBoard.USED_CONSTRAINT_LEVEL, find(events, "CandidateSweep").getInt("constraintLevel"));
+        assertEquals(3, find(events, "ImpossibleToFillCheck").getInt("size"));
+        assertEquals(3, find(events, "BoardCreation").getInt("size"));
+    }
+
+    @Test
+    void eventsShallBeDisabledByDefault() throws Exception {
+        List<RecordedEvent> events = record(false, () -> SudokuSolver.solve(SudokuBoard.parse(PUZZLE)));
+
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName().startsWith("com.github")));
+    }
+
+    private static List<RecordedEvent> record(boolean enableSudokuEvents, Runnable action) throws Exception {
+        Path file = Files.createTempFile("sudoku", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                if (enableSudokuEvents) {
+                    for (Class<?> eventClass : SudokuEvents.class.getDeclaredClasses()) {
+                        recording.enable(eventClass.asSubclass(Event.class));
+                    }
+                }
+                recording.start();
+                action.run();
+                recording.stop();
+                recording.dump(file);
+            }
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.github.jldelarbre." + name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event"));
+    }
+}
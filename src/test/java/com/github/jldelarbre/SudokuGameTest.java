@@ -0,0 +1,117 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuGameTest {
+
+    private SudokuGame game;
+
+    @AfterEach
+    void closeGame() throws InterruptedException {
+        if (game != null) {
+            game.close();
+        }
+    }
+
+    @Test
+    void shouldUndoAndRedoMoves() {
+        game = SudokuGame.build();
+        game.setCell(5, 1, 1);
+        game.setCell(7, 1, 1);
+        game.clearCell(1, 1);
+
+        assertEquals(Optional.of(7), game.undo().cell(1, 1).value());
+        assertEquals(Optional.of(5), game.undo().cell(1, 1).value());
+        assertEquals(Optional.empty(), game.undo().cell(1, 1).value());
+        assertEquals(Optional.empty(), game.undo().cell(1, 1).value());
+
+        assertEquals(Optional.of(5), game.redo().cell(1, 1).value());
+        assertEquals(Optional.of(7), game.redo().cell(1, 1).value());
+        assertEquals(Optional.empty(), game.redo().cell(1, 1).value());
+        assertEquals(0, game.redoableMoves());
+    }
+
+    @Test
+    void newMoveShallDiscardRedoableMoves() {
+        game = SudokuGame.build();
+        game.setCell(5, 2, 3);
+        game.undo();
+
+        game.setCell(4, 6, 7);
+
+        assertEquals(0, game.redoableMoves());
+        assertEquals(1, game.undoableMoves());
+        assertEquals(Optional.empty(), game.redo().cell(2, 3).value());
+    }
+
+    @Test
+    void historyShallBeCapped() {
+        game = SudokuGame.build(2);
+        game.setCell(1, 1, 1);
+        game.setCell(2, 1, 2);
+        game.setCell(3, 1, 3);
+
+        assertEquals(2, game.undoableMoves());
+        game.undo();
+        SudokuBoard board = game.undo();
+        assertEquals(board, game.undo());
+        assertEquals(Optional.of(1), board.cell(1, 1).value());
+        assertEquals(Optional.empty(), board.cell(1, 2).value());
+    }
+
+    @Test
+    void invalidMoveShallNotBeRecorded() {
+        game = SudokuGame.build();
+
+        assertThrows(IllegalArgumentException.class, () -> game.setCell(10, 1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> game.setCell(1, 10, 1));
+        assertEquals(0, game.undoableMoves());
+    }
+
+    @Test
+    void newGameShallClearHistory() {
+        game = SudokuGame.build();
+        game.setCell(1, 1, 1);
+        game.setCell(2, 1, 2);
+        game.undo();
+
+        SudokuBoard board = game.startNewGame(2);
+
+        assertEquals(0, game.undoableMoves());
+        assertEquals(0, game.redoableMoves());
+        assertEquals(2, board.size());
+    }
+
+    @Test
+    void predictedMoveShallReuseSpeculatedBoard() throws InterruptedException {
+        game = SudokuGame.build();
+        for (int column = 1; column <= 8; ++column) {
+            game.setCell(column, 1, column);
+        }
+        game.awaitSpeculation();
+        long speculationHits = game.speculationHits();
+
+        SudokuBoard board = game.setCell(9, 1, 9);
+
+        assertEquals(speculationHits + 1, game.speculationHits());
+        assertEquals(Optional.of(9), board.cell(1, 9).value());
+        assertEquals("123456789" + ".".repeat(72), board.toLine());
+    }
+
+    @Test
+    void unpredictedMoveShallBuildNewBoard() throws InterruptedException {
+        game = SudokuGame.build();
+        game.awaitSpeculation();
+        long speculationMisses = game.speculationMisses();
+
+        SudokuBoard board = game.setCell(4, 5, 6);
+
+        assertEquals(speculationMisses + 1, game.speculationMisses());
+        assertEquals(Optional.of(4), board.cell(5, 6).value());
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuHintsTest {
+    private static final String SOLUTION =
+            "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    @Test
+    void shallHintNakedSingleFirst() {
+        SudokuBoard board = SudokuBoard.create(2)
+                .set(1, 1, 1)
+                .set(2, 1, 2)
+                .set(3, 1, 3);
+
+        SudokuHints.Hint hint = SudokuHints.nextHint(board).get();
+
+        assertEquals(SudokuHints.Technique.NAKED_SINGLE, hint.technique());
+        assertEquals(0, hint.constraintLevel());
+        assertEquals(board.cell(1, 4), hint.cell());
+        assertEquals(4, hint.value());
+        assertEquals("(1, 4) = 4: the only candidate of the cell", hint.justification());
+    }
+
+    @Test
+    void shallHintHiddenSingleWithItsRegion() {
+        // 1 is excluded from the first two boxes and the columns 7 and 8 of the first row
+        SudokuBoard board = SudokuBoard.create(3)
+                .set(1, 2, 1)
+                .set(1, 3, 4)
+                .set(1, 4, 7)
+                .set(1, 7, 8);
+
+        SudokuHints.Hint hint = SudokuHints.nextHint(board).get();
+
+        assertEquals(SudokuHints.Technique.HIDDEN_SINGLE, hint.technique());
+        assertEquals(board.cell(1, 9), hint.cell());
+        assertEquals(1, hint.value());
+        assertEquals(Optional.of(board.row(1)), hint.region());
+        assertEquals("(1, 9) = 1: the only position of 1 in its row 1", hint.justification());
+    }
+
+    @Test
+    void hintsShallLeadToTheSolution() {
+        SudokuBoard board = SudokuSolver.generate(3, new Random(42));
+        String solution = SudokuSolver.solve(board).solution().get().toLine();
+        int hints = 0;
+        for (Optional<SudokuHints.Hint> hint = SudokuHints.nextHint(board); hint.isPresent();
+             hint = SudokuHints.nextHint(board)) {
+            SudokuBoard.Cell cell = hint.get().cell();
+            int index = (cell.rowIndex() - 1) * 9 + cell.columnIndex() - 1;
+            assertEquals(solution.charAt(index) - '0', hint.get().value(), hint.get().justification());
+            board = board.set(hint.get().value(), cell.rowIndex(), cell.columnIndex());
+            ++hints;
+        }
+
+        assertTrue(hints > 0);
+    }
+
+    @Test
+    void interruptedLookupShallGiveUp() {
+        SudokuBoard board = SudokuBoard.create(2).set(1, 1, 1).set(2, 1, 2).set(3, 1, 3);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(Optional.empty(), SudokuHints.nextHint(board));
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(SudokuHints.nextHint(board).isPresent());
+    }
+
+    @Test
+    void shallNotHintCompleteOrErroneousBoards() {
+        assertEquals(Optional.empty(), SudokuHints.nextHint(SudokuBoard.parse(SOLUTION)));
+        assertEquals(Optional.empty(), SudokuHints.nextHint(SudokuBoard.create(3).set(5, 1, 1).set(5, 1, 9)));
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuMetricsTest {
+
+    @Test
+    void countersShallBeReadThroughJmx() throws Exception {
+        SudokuMetrics.registerMBean();
+        SudokuMetrics.registerMBean();
+        SudokuMetricsMXBean metrics = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                                                         new ObjectName(SudokuMetrics.OBJECT_NAME),
+                                                         SudokuMetricsMXBean.class);
+        long boardsCreated = metrics.getBoardsCreated();
+        long candidateCacheMisses = metrics.getCandidateCacheMisses()[1];
+        long candidateCacheHits = metrics.getCandidateCacheHits()[1];
+
+        SudokuBoard board = SudokuBoard.create(3).set(1, 1, 1).clear(1, 1).set(5, 2, 2);
+        board.cell(9, 9).getRemainingCandidateValuesAfterEliminationFromNeighboringCells(1);
+        board.cell(9, 9).getRemainingCandidateValuesAfterEliminationFromNeighboringCells(1);
+
+        assertTrue(metrics.isEnabled());
+        assertEquals(SudokuBoard.USED_CONSTRAINT_LEVEL + 1, metrics.getCandidateCacheMisses().length);
+        assertEquals(boardsCreated + 3, metrics.getBoardsCreated());
+        assertEquals(candidateCacheMisses + 1, metrics.getCandidateCacheMisses()[1]);
+        assertEquals(candidateCacheHits + 1, metrics.getCandidateCacheHits()[1]);
+    }
+}
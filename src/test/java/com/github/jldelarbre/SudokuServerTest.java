@@ -0,0 +1,125 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuServerTest {
+
+    private static final String HARD_PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_PUZZLE_SOLUTION =
+            "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private SudokuServer server;
+
+    @AfterEach
+    void closeServer() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void shallAnswerBatchOfPuzzles() throws Exception {
+        server = startServer(2);
+
+        HttpResponse<String> response = post("/solve", HARD_PUZZLE + "\n\n" + "12" + "\n" + HARD_PUZZLE + "\n");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(HARD_PUZZLE_SOLUTION + "\nerror: Line length = 2 is not a valid board length\n"
+                     + HARD_PUZZLE_SOLUTION + "\n", response.body());
+    }
+
+    @Test
+    void shallValidateAndCountSolutions() throws Exception {
+        server = startServer(2);
+        String emptyPuzzle = ".".repeat(81);
+        String invalidPuzzle = "11" + ".".repeat(79);
+
+        assertEquals("unique\nmultiple\ninvalid\n",
+                     post("/validate", HARD_PUZZLE + "\n" + emptyPuzzle + "\n" + invalidPuzzle).body());
+        assertEquals("count=1 exhaustive=true\ncount=3 exhaustive=false\n",
+                     post("/count-solutions?limit=3", HARD_PUZZLE + "\n" + emptyPuzzle).body());
+        assertEquals(400, post("/count-solutions?limit=none", HARD_PUZZLE).statusCode());
+        assertEquals(400, post("/count-solutions?limit=2000000000", HARD_PUZZLE).statusCode());
+    }
+
+    @Test
+    void searchesBeyondNodeBudgetShallBeAnsweredUnknown() throws Exception {
+        server = SudokuServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 1 << 20, 1);
+
+        assertEquals("unknown\n", post("/solve", HARD_PUZZLE).body());
+        assertEquals("unknown\n", post("/validate", HARD_PUZZLE).body());
+        assertEquals("count=0 exhaustive=false\n", post("/count-solutions", HARD_PUZZLE).body());
+    }
+
+    @Test
+    void shallAnswerCandidates() throws Exception {
+        server = startServer(2);
+        String puzzle = "1" + ".".repeat(80);
+
+        String[] candidates = post("/candidates?level=0", puzzle).body().strip().split(" ");
+
+        assertEquals(81, candidates.length);
+        assertEquals("-", candidates[0]);
+        assertEquals("23456789", candidates[1]);
+        assertEquals("123456789", candidates[80]);
+        assertEquals(400, post("/candidates?level=9", puzzle).statusCode());
+    }
+
+    @Test
+    void repeatedPuzzlesShallBeServedFromCache() throws Exception {
+        server = startServer(2);
+
+        post("/solve", HARD_PUZZLE);
+        HttpResponse<String> response = post("/solve", HARD_PUZZLE + "\n" + HARD_PUZZLE);
+        post("/validate", HARD_PUZZLE);
+
+        assertEquals(HARD_PUZZLE_SOLUTION + "\n" + HARD_PUZZLE_SOLUTION + "\n", response.body());
+        assertEquals(2, server.resultCache().hits());
+        assertEquals(2, server.resultCache().misses());
+    }
+
+    @Test
+    void shallRejectRequestsBeyondConcurrencyLimit() throws Exception {
+        server = startServer(0);
+
+        HttpResponse<String> response = post("/solve", HARD_PUZZLE);
+
+        assertEquals(429, response.statusCode());
+    }
+
+    @Test
+    void shallOnlyAcceptPost() throws Exception {
+        server = startServer(1);
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/solve")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode());
+    }
+
+    private static SudokuServer startServer(int maxConcurrentRequests) throws IOException {
+        return SudokuServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), maxConcurrentRequests,
+                                  1 << 20, Long.MAX_VALUE);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.jldelarbre;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SudokuSolverTest {
+    private static final String PUZZLE =
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String SOLUTION =
+            "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    @Test
+    void shouldSolvePuzzle() {
+        SudokuSolver.Result result = SudokuSolver.solve(SudokuBoard.parse(PUZZLE));
+
+        assertTrue(result.isSolved());
+        assertEquals(SOLUTION, result.solution().get().toLine());
+        assertTrue(result.nodes() > 0);
+    }
+
+    @Test
+    void shouldFindUniqueSolution() {
+        SudokuSolver.Result result = SudokuSolver.countSolutions(SudokuBoard.parse(PUZZLE), 2);
+
+        assertEquals(1, result.solutionCount());
+        assertTrue(result.isUnique());
+    }
+
+    @Test
+    void shouldStopCountingAtLimit() {
+        SudokuSolver.Result result = SudokuSolver.countSolutions(SudokuBoard.create(3), 10);
+
+        assertEquals(10, result.solutionCount());
+        assertFalse(result.exhaustive());
+        assertFalse(result.isUnique());
+    }
+
+    @Test
+    void shouldStopSearchWhenNodeBudgetIsExceeded() {
+        SudokuSolver.Result result = SudokuSolver.countSolutions(SudokuBoard.create(3), Long.MAX_VALUE, 100);
+
+        assertFalse(result.exhaustive());
+        assertEquals(100, result.nodes());
+    }
+
+    @Test
+    void shouldNotSolveBoardWithDuplicateValues() {
+        SudokuBoard board = SudokuBoard.create(3)
+                .set(5, 1, 1)
+                .set(5, 1, 9);
+
+        SudokuSolver.Result result = SudokuSolver.solve(board);
+
+        assertFalse(result.isSolved());
+        assertEquals(0, result.solutionCount());
+        assertTrue(result.exhaustive());
+    }
+
+    @Test
+    void solutionShallKeepGivenValues() {
+        SudokuBoard board = SudokuBoard.create(2)
+                .set(1, 1, 1)
+                .set(2, 2, 3);
+
+        SudokuBoard solution = SudokuSolver.solve(board).solution().get();
+
+        assertEquals(Integer.valueOf(1), solution.cell(1, 1).value().get());
+        assertEquals(Integer.valueOf(2), solution.cell(2, 3).value().get());
+        assertTrue(solution.cells().stream().allMatch(cell -> cell.value().isPresent()));
+    }
+
+    @Test
+    void generatedPuzzleShallHaveUniqueSolution() {
+        SudokuBoard puzzle = SudokuSolver.generate(3, new Random(42));
+
+        assertTrue(SudokuSolver.countSolutions(puzzle, 2).isUnique());
+        assertEquals(puzzle.toLine(), SudokuSolver.generate(3, new Random(42)).toLine());
+    }
+
+    @Test
+    void shouldSolveVariants() {
+        ConstraintGraph xSudoku = ConstraintGraph.builder(3).withDiagonals().build();
+        ConstraintGraph jigsaw = ConstraintGraph.builder(3).withJigsaw(ConstraintGraphTest.shiftedBoxes()).build();
+        ConstraintGraph windoku = ConstraintGraph.builder(3).withWindows().build();
+
+        for (ConstraintGraph graph : List.of(xSudoku, jigsaw, windoku)) {
+            SudokuBoard solution = SudokuSolver.solve(SudokuBoard.create(graph)).solution().get();
+
+            assertSame(graph, solution.constraintGraph());
+            assertTrue(solution.cells().stream().allMatch(cell -> cell.value().isPresent()));
+            assertFalse(solution.hasConflicts());
+        }
+        // The classic solution repeats 4 on the main diagonal
+        assertEquals(0, SudokuSolver.countSolutions(SudokuBoard.parse(PUZZLE, xSudoku), 2).solutionCount());
+    }
+
+    @Test
+    void shouldSolveKillerSudoku() {
+        // Cages of two cells, side by side, adding up to the values of the solution
+        ConstraintGraph.Builder builder = ConstraintGraph.builder(3);
+        for (int cell = 0; cell < 81; cell += 2) {
+            if (cell % 9 == 8) {
+                cell -= 1;
+                continue;
+            }
+            builder.withCage(value(cell) + value(cell + 1), cell, cell + 1);
+        }
+        ConstraintGraph killer = builder.build();
+
+        SudokuSolver.Result puzzleResult = SudokuSolver.countSolutions(SudokuBoard.parse(PUZZLE, killer), 2);
+        SudokuBoard solution = SudokuSolver.solve(SudokuBoard.create(killer)).solution().get();
+
+        assertTrue(puzzleResult.isUnique());
+        assertEquals(SOLUTION, puzzleResult.solution().get().toLine());
+        assertTrue(puzzleResult.nodes() <= SudokuSolver.solve(SudokuBoard.parse(PUZZLE)).nodes());
+        assertFalse(solution.hasConflicts());
+        for (SudokuBoard.VariantRegion cage : solution.variantRegions()) {
+            assertEquals(cage.sum(), cage.cells().stream().mapToInt(cell -> cell.value().get()).sum());
+        }
+    }
+
+    @Test
+    void solutionsShallBeStreamedLazily() {
+        assertEquals(List.of(SOLUTION),
+                     SudokuSolver.solutions(SudokuBoard.parse(PUZZLE)).map(SudokuBoard::toLine).toList());
+        // The empty 9x9 board has billions of solutions
+        assertEquals(5, SudokuSolver.solutions(SudokuBoard.create(3)).limit(5).count());
+        assertEquals(SudokuSolver.solve(SudokuBoard.create(3)).solution().map(SudokuBoard::toLine),
+                     SudokuSolver.solutions(SudokuBoard.create(3)).findFirst().map(SudokuBoard::toLine));
+        assertEquals(0, SudokuSolver.solutions(SudokuBoard.create(3).set(5, 1, 1).set(5, 1, 9)).count());
+    }
+
+    @Test
+    void parallelSolutionsShallMatchSequentialOrder() {
+        List<String> sequential = SudokuSolver.solutions(SudokuBoard.create(2)).map(SudokuBoard::toLine).toList();
+        List<String> parallel = SudokuSolver.solutions(SudokuBoard.create(2)).parallel()
+                .map(SudokuBoard::toLine).toList();
+
+        assertEquals(288, sequential.size());
+        assertEquals(288, Set.copyOf(sequential).size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void solutionSpliteratorShallSplitUnexploredBranches() {
+        Spliterator<SudokuBoard> suffix = SudokuSolver.solutions(SudokuBoard.create(2)).spliterator();
+        Spliterator<SudokuBoard> prefix = suffix.trySplit();
+        List<String> solutions = new ArrayList<>();
+
+        assertNotNull(prefix);
+        prefix.forEachRemaining(board -> solutions.add(board.toLine()));
+        int prefixCount = solutions.size();
+        suffix.forEachRemaining(board -> solutions.add(board.toLine()));
+
+        assertTrue(prefixCount > 0 && prefixCount < 288);
+        assertEquals(SudokuSolver.solutions(SudokuBoard.create(2)).map(SudokuBoard::toLine).toList(), solutions);
+    }
+
+    @Test
+    void smallSearchSpacesShallBeCountedExactly() {
+        SudokuSolver.Estimate unique = SudokuSolver.estimateSolutions(SudokuBoard.parse(PUZZLE), 100, new Random(1));
+        SudokuSolver.Estimate unsolvable =
+                SudokuSolver.estimateSolutions(SudokuBoard.create(3).set(5, 1, 1).set(5, 1, 9), 100, new Random(1));
+        SudokuSolver.Estimate empty4x4 = SudokuSolver.estimateSolutions(SudokuBoard.create(2), 100, new Random(1));
+
+        assertTrue(unique.exact());
+        assertEquals(1.0, unique.solutionCount());
+        assertEquals(0.0, unsolvable.upperBound());
+        assertEquals(new SudokuSolver.Estimate(288, 288, 288, true), empty4x4);
+    }
+
+    @Test
+    void largeSearchSpacesShallBeEstimatedByProbes() {
+        // Without exact count, the 288 grids of size 2 are estimated
+        SudokuSolver.Estimate empty4x4 = SudokuSolver.estimateSolutions(SudokuBoard.create(2), 2000, new Random(1), 0);
+        // 6.67e21 grids of size 3
+        SudokuSolver.Estimate empty9x9 = SudokuSolver.estimateSolutions(SudokuBoard.create(3), 200, new Random(1));
+
+        assertFalse(empty4x4.exact());
+        assertTrue(empty4x4.lowerBound() <= 288 && 288 <= empty4x4.upperBound(), empty4x4.toString());
+        assertFalse(empty9x9.exact());
+        assertTrue(empty9x9.lowerBound() < empty9x9.solutionCount()
+                   && empty9x9.solutionCount() < empty9x9.upperBound());
+        assertTrue(empty9x9.solutionCount() > 1e20 && empty9x9.solutionCount() < 1e23, empty9x9.toString());
+    }
+
+    @Test
+    void interruptedEstimationShallReturnPromptly() throws InterruptedException {
+        List<SudokuSolver.Estimate> estimates = new ArrayList<>();
+        // Thousands of probes of a 25x25 board would take minutes
+        Thread estimation = new Thread(() -> estimates.add(
+                SudokuSolver.estimateSolutions(SudokuBoard.create(5), 10_000, new Random(1))));
+        estimation.start();
+        Thread.sleep(200);
+
+        estimation.interrupt();
+        estimation.join(2_000);
+
+        assertFalse(estimation.isAlive());
+        assertFalse(estimates.getFirst().exact());
+    }
+
+    private static int value(int cell) {
+        return SOLUTION.charAt(cell) - '0';
+    }
+}